@@ -0,0 +1,275 @@
+/*
+ * This file is part of PV-Star for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.pvs;
+
+import com.jcwhatever.pvs.api.arena.ArenaRegion;
+import com.jcwhatever.pvs.api.arena.IArena;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Index of arenas by the chunks their regions overlap.
+ *
+ * <p>Used to look up the arena at a location without querying the region
+ * manager. Lookups do not allocate. Locations in worlds or chunks that no
+ * arena region touches return without checking any region.</p>
+ *
+ * <p>The index is rebuilt by calling {@link #rebuild} when a region changes.
+ * {@link #validate} catches changes that were not reported.</p>
+ */
+class ArenaChunkIndex {
+
+    private final Map<String, ChunkTable> _worlds = new HashMap<>(5);
+
+    // region bounds the index was built from, used to detect region changes
+    private final Map<IArena, RegionBounds> _bounds = new HashMap<>(20);
+
+    /**
+     * Get the arena whose region contains a location.
+     *
+     * @param location  The location to check.
+     *
+     * @return  The arena or null if the location is not in an arena region.
+     */
+    @Nullable
+    public IArena getArena(Location location) {
+
+        World world = location.getWorld();
+        if (world == null)
+            return null;
+
+        ChunkTable table = _worlds.get(world.getName());
+        if (table == null)
+            return null;
+
+        IArena[] candidates = table.get(
+                chunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4));
+
+        if (candidates == null)
+            return null;
+
+        for (IArena arena : candidates) {
+            if (arena.getRegion().contains(location))
+                return arena;
+        }
+
+        return null;
+    }
+
+    /**
+     * Rebuild the index if any arena region has changed since the
+     * index was built or the arenas are not the same.
+     *
+     * @param arenas  The current arenas.
+     *
+     * @return  True if the index was rebuilt.
+     */
+    public boolean validate(Collection<IArena> arenas) {
+
+        boolean isChanged = arenas.size() != _bounds.size();
+
+        if (!isChanged) {
+            for (IArena arena : arenas) {
+                RegionBounds bounds = _bounds.get(arena);
+                if (bounds == null || !bounds.isSame(arena.getRegion())) {
+                    isChanged = true;
+                    break;
+                }
+            }
+        }
+
+        if (isChanged)
+            rebuild(arenas);
+
+        return isChanged;
+    }
+
+    /**
+     * Rebuild the index.
+     *
+     * @param arenas  The arenas to index.
+     */
+    public void rebuild(Collection<IArena> arenas) {
+
+        _worlds.clear();
+        _bounds.clear();
+
+        for (IArena arena : arenas) {
+
+            ArenaRegion region = arena.getRegion();
+            RegionBounds bounds = new RegionBounds(region);
+
+            _bounds.put(arena, bounds);
+
+            if (bounds.worldName == null)
+                continue;
+
+            ChunkTable table = _worlds.get(bounds.worldName);
+            if (table == null) {
+                table = new ChunkTable();
+                _worlds.put(bounds.worldName, table);
+            }
+
+            for (int x = bounds.xStart >> 4; x <= bounds.xEnd >> 4; x++) {
+                for (int z = bounds.zStart >> 4; z <= bounds.zEnd >> 4; z++) {
+                    table.add(chunkKey(x, z), arena);
+                }
+            }
+        }
+    }
+
+    private static long chunkKey(int x, int z) {
+        return ((long)x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    /*
+     * Open addressing hash table of chunk keys to candidate arenas.
+     */
+    private static class ChunkTable {
+
+        long[] keys = new long[64];
+        IArena[][] values = new IArena[64][];
+        int size;
+
+        @Nullable
+        IArena[] get(long key) {
+
+            int mask = keys.length - 1;
+            int index = hash(key) & mask;
+
+            while (values[index] != null) {
+
+                if (keys[index] == key)
+                    return values[index];
+
+                index = (index + 1) & mask;
+            }
+
+            return null;
+        }
+
+        void add(long key, IArena arena) {
+
+            if ((size + 1) * 2 > keys.length)
+                resize();
+
+            int mask = keys.length - 1;
+            int index = hash(key) & mask;
+
+            while (values[index] != null) {
+
+                if (keys[index] == key) {
+                    IArena[] current = values[index];
+                    IArena[] expanded = Arrays.copyOf(current, current.length + 1);
+                    expanded[current.length] = arena;
+                    values[index] = expanded;
+                    return;
+                }
+
+                index = (index + 1) & mask;
+            }
+
+            keys[index] = key;
+            values[index] = new IArena[] { arena };
+            size++;
+        }
+
+        private void resize() {
+
+            long[] oldKeys = keys;
+            IArena[][] oldValues = values;
+
+            keys = new long[oldKeys.length * 2];
+            values = new IArena[oldValues.length * 2][];
+
+            int mask = keys.length - 1;
+
+            for (int i = 0; i < oldKeys.length; i++) {
+
+                if (oldValues[i] == null)
+                    continue;
+
+                int index = hash(oldKeys[i]) & mask;
+
+                while (values[index] != null)
+                    index = (index + 1) & mask;
+
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int)(h ^ (h >>> 32));
+        }
+    }
+
+    /*
+     * Snapshot of the region bounds an arena was indexed with.
+     */
+    private static class RegionBounds {
+
+        final String worldName;
+        final int xStart;
+        final int xEnd;
+        final int zStart;
+        final int zEnd;
+
+        RegionBounds(ArenaRegion region) {
+
+            if (region.isDefined()) {
+                worldName = region.getWorldName();
+                xStart = region.getXStart();
+                xEnd = region.getXEnd();
+                zStart = region.getZStart();
+                zEnd = region.getZEnd();
+            }
+            else {
+                worldName = null;
+                xStart = xEnd = zStart = zEnd = 0;
+            }
+        }
+
+        boolean isSame(ArenaRegion region) {
+
+            if (!region.isDefined())
+                return worldName == null;
+
+            return worldName != null &&
+                    worldName.equals(region.getWorldName()) &&
+                    xStart == region.getXStart() &&
+                    xEnd == region.getXEnd() &&
+                    zStart == region.getZStart() &&
+                    zEnd == region.getZEnd();
+        }
+    }
+}
@@ -24,15 +24,14 @@
 
 package com.jcwhatever.pvs;
 
-import com.jcwhatever.nucleus.Nucleus;
 import com.jcwhatever.nucleus.collections.players.PlayerMap;
+import com.jcwhatever.nucleus.managed.scheduler.Scheduler;
 import com.jcwhatever.nucleus.providers.storage.DataStorage;
 import com.jcwhatever.nucleus.storage.DataPath;
 import com.jcwhatever.nucleus.storage.IDataNode;
 import com.jcwhatever.nucleus.utils.PreCon;
 import com.jcwhatever.nucleus.utils.text.TextUtils;
 import com.jcwhatever.pvs.api.PVStarAPI;
-import com.jcwhatever.pvs.api.arena.ArenaRegion;
 import com.jcwhatever.pvs.api.arena.IArena;
 import com.jcwhatever.pvs.api.arena.IArenaPlayer;
 import com.jcwhatever.pvs.api.arena.managers.IArenaManager;
@@ -59,16 +58,38 @@ import java.util.UUID;
  */
 public class ArenaManager implements IArenaManager {
 
+    private static final int REGION_CHECK_TICKS = 20 * 60;
+
     private final Map<UUID, IArena> _arenaIdMap = new HashMap<>(20);
     private final Map<String, Class<? extends IArena>> _arenaTypes = new HashMap<>(20);
     private final IDataNode _dataNode;
     private final PVStar _pvStar;
     private final Map<UUID, IArena> _selectedArenas = new PlayerMap<IArena>(PVStarAPI.getPlugin(), 10);
+    private final ArenaQueue _queue;
+    private final ArenaChunkIndex _regionIndex = new ArenaChunkIndex();
     private IArena _consoleArena;
 
     public ArenaManager(IDataNode dataNode) {
         _dataNode = dataNode;
         _pvStar = PVStar.getPlugin(PVStar.class);
+        _queue = new ArenaQueue(this);
+
+        // Arena regions rebuild the index when their coordinates are changed.
+        // Safety net for region changes that were not reported.
+        Scheduler.runTaskRepeat(PVStarAPI.getPlugin(), REGION_CHECK_TICKS, REGION_CHECK_TICKS,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        _regionIndex.validate(_arenaIdMap.values());
+                    }
+                });
+    }
+
+    /**
+     * Get the matchmaking queue.
+     */
+    public ArenaQueue getQueue() {
+        return _queue;
     }
 
     public boolean registerType(Class<? extends IArena> arenaClass) {
@@ -129,6 +150,15 @@ public class ArenaManager implements IArenaManager {
         return true;
     }
 
+    /**
+     * Rebuild the arena region index used to get arenas by location.
+     *
+     * <p>Invoked by arenas when their region coordinates are changed.</p>
+     */
+    public void updateRegionIndex() {
+        _regionIndex.rebuild(_arenaIdMap.values());
+    }
+
     public void saveArenaName(IArena arena) {
         IDataNode arenaNode = _dataNode.getNode(arena.getId().toString());
         arenaNode.set("name", arena.getName());
@@ -158,13 +188,9 @@ public class ArenaManager implements IArenaManager {
     @Override
     @Nullable
     public IArena getArena(Location location) {
+        PreCon.notNull(location);
 
-        List<ArenaRegion> regions = Nucleus.getRegionManager().getRegions(location, ArenaRegion.class);
-        if (regions.isEmpty())
-            return null;
-
-        ArenaRegion region = regions.get(0);
-        return region.getArena();
+        return _regionIndex.getArena(location);
     }
 
     @Override
@@ -248,6 +274,8 @@ public class ArenaManager implements IArenaManager {
 
         _pvStar.getPointsManager().loadTypes(arena);
 
+        updateRegionIndex();
+
         ArenaCreatedEvent event = new ArenaCreatedEvent(arena);
         PVStarAPI.getEventManager().call(this, event);
 
@@ -266,6 +294,8 @@ public class ArenaManager implements IArenaManager {
 
         arena.dispose();
 
+        updateRegionIndex();
+
         DataStorage.remove(PVStarAPI.getPlugin(), new DataPath("arenas." + arena.getId().toString()));
 
         File arenaFolder = new File(PVStarAPI.getPlugin().getDataFolder(), "arenas");
@@ -312,5 +342,7 @@ public class ArenaManager implements IArenaManager {
 
             _arenaIdMap.put(arenaId, arena);
         }
+
+        updateRegionIndex();
     }
 }
@@ -28,9 +28,7 @@ import com.jcwhatever.nucleus.utils.PreCon;
 import com.jcwhatever.pvs.api.arena.IArena;
 import com.jcwhatever.pvs.api.arena.IArenaPlayer;
 import com.jcwhatever.pvs.api.arena.IArenaPlayerGroup;
-import com.jcwhatever.pvs.api.arena.IBukkitPlayer;
 import com.jcwhatever.pvs.api.arena.collections.IArenaPlayerCollection;
-import com.jcwhatever.pvs.api.utils.Msg;
 import com.jcwhatever.pvs.api.utils.ArenaPlayerArrayList;
 import com.jcwhatever.pvs.players.ArenaPlayer;
 
@@ -96,13 +94,7 @@ public class ArenaPlayerGroup implements IArenaPlayerGroup {
         PreCon.notNullOrEmpty(message);
         PreCon.notNull(params);
 
-        for (IArenaPlayer player : _players) {
-
-            if (!(player instanceof IBukkitPlayer))
-                continue;
-
-            Msg.tell(((IBukkitPlayer) player).getPlayer(), message, params);
-        }
+        Broadcast.tell(_players, message, params);
     }
 
     @Override
@@ -25,44 +25,76 @@
 package com.jcwhatever.pvs;
 
 
+import com.jcwhatever.nucleus.events.manager.EventMethod;
+import com.jcwhatever.nucleus.events.manager.IEventListener;
 import com.jcwhatever.nucleus.utils.CollectionUtils;
 import com.jcwhatever.nucleus.utils.PreCon;
+import com.jcwhatever.nucleus.utils.observer.event.EventSubscriberPriority;
 import com.jcwhatever.nucleus.utils.performance.EntryCache;
+import com.jcwhatever.pvs.api.PVStarAPI;
 import com.jcwhatever.pvs.api.arena.ArenaTeam;
 import com.jcwhatever.pvs.api.arena.IArena;
 import com.jcwhatever.pvs.api.arena.IArenaPlayer;
 import com.jcwhatever.pvs.api.arena.IArenaPlayerGroup;
-import com.jcwhatever.pvs.api.arena.IBukkitPlayer;
 import com.jcwhatever.pvs.api.arena.collections.IArenaPlayerCollection;
 import com.jcwhatever.pvs.api.arena.options.RemoveFromContextReason;
+import com.jcwhatever.pvs.api.events.players.PlayerTeamChangedEvent;
 import com.jcwhatever.pvs.api.utils.ArenaPlayerArrayList;
 import com.jcwhatever.pvs.api.utils.ArenaPlayerHashSet;
-import com.jcwhatever.pvs.api.utils.Msg;
+import org.bukkit.plugin.Plugin;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * {@link IArenaPlayerGroup} collection.
+ *
+ * <p>Players are indexed by team. The index is updated when players are added
+ * or removed and when a player's team changes.</p>
+ *
+ * <p>The number of players and ready players from each player group is also
+ * counted so that the ready state of a group can be checked without scanning
+ * the collection.</p>
  */
-public class ArenaPlayersCollection {
+public class ArenaPlayersCollection implements IEventListener {
 
     private final IArena _arena;
-    private final Set<IArenaPlayerGroup> _groups = new HashSet<>(5);
+    private final Map<IArenaPlayerGroup, GroupCounter> _groups = new HashMap<>(5);
     private final ArenaPlayerHashSet _players = new ArenaPlayerHashSet();
     private final EntryCache<Integer, IArenaPlayerCollection> _cachedNextGroup = new EntryCache<>();
 
+    // team index, players are removed from the team they were indexed under
+    private final Map<ArenaTeam, Set<IArenaPlayer>> _teams = new EnumMap<>(ArenaTeam.class);
+    private final Map<IArenaPlayer, ArenaTeam> _playerTeams = new HashMap<>(20);
+
+    // group counter index, players are removed from the group they were counted in
+    private final Map<IArenaPlayer, IArenaPlayerGroup> _playerGroups = new HashMap<>(20);
+    private final ArenaPlayerHashSet _readyPlayers = new ArenaPlayerHashSet();
+
     private IArenaPlayerCollection _cachedReadyGroup;
 
+    // immutable snapshot of players, rebuilt after membership changes
+    private IArenaPlayerCollection _snapshot;
+
     /**
      * Constructor.
      */
     public ArenaPlayersCollection(IArena arena) {
         _arena = arena;
+
+        arena.getEventManager().register(this);
+    }
+
+    @Override
+    public Plugin getPlugin() {
+        return PVStarAPI.getPlugin();
     }
 
     /**
@@ -83,28 +115,33 @@ public class ArenaPlayersCollection {
 
         _cachedNextGroup.reset();
         _cachedReadyGroup = null;
+        _snapshot = null;
         _players.add(player);
 
-        if (player.getPlayerGroup() != null) {
+        indexTeam(player, player.getTeam());
 
-            // add existing player group
-            _groups.add(player.getPlayerGroup());
-        }
-        else {
+        IArenaPlayerGroup playerGroup = player.getPlayerGroup();
+
+        if (playerGroup == null) {
 
             // Add new player to an existing group if available
-            for (IArenaPlayerGroup group : _groups) {
+            for (IArenaPlayerGroup group : _groups.keySet()) {
                 if (group.size() < _arena.getSettings().getMaxPlayers()) {
-                    group.addPlayer(player);
-                    return;
+                    playerGroup = group;
+                    break;
                 }
             }
 
             // add new player to new group
-            IArenaPlayerGroup group = new ArenaPlayerGroup();
-            group.addPlayer(player);
-            _groups.add(group);
+            if (playerGroup == null)
+                playerGroup = new ArenaPlayerGroup();
+
+            playerGroup.addPlayer(player);
         }
+
+        // adding the player to a group may have already indexed the player
+        if (!_playerGroups.containsKey(player))
+            indexGroup(player, playerGroup);
     }
 
     /**
@@ -118,9 +155,15 @@ public class ArenaPlayersCollection {
 
         _cachedNextGroup.reset();
         _cachedReadyGroup = null;
+        _snapshot = null;
 
         _players.remove(player);
 
+        unindexTeam(player);
+
+        // removes the group if no other players from it are in the collection
+        unindexGroup(player);
+
         IArenaPlayerGroup group = player.getPlayerGroup();
         if (group == null)
             throw new NullPointerException(
@@ -131,18 +174,55 @@ public class ArenaPlayersCollection {
                 reason != RemoveFromContextReason.CONTEXT_CHANGE) {
             group.removePlayer(player);
         }
+    }
+
+    /**
+     * Update the ready count of a player's group after the player's
+     * ready state changes.
+     *
+     * <p>Ignored if the player is not in the collection.</p>
+     */
+    public void updateReady(IArenaPlayer player) {
+        PreCon.notNull(player);
 
-        IArenaPlayerCollection groupPlayers = group.getPlayers();
+        IArenaPlayerGroup group = _playerGroups.get(player);
+        if (group == null)
+            return;
 
-        // check to see if any other players are in the group
-        for (IArenaPlayer groupPlayer : groupPlayers) {
-            if (_players.contains(groupPlayer)) {
-                return; // finished
-            }
+        GroupCounter counter = _groups.get(group);
+
+        if (player.isReady()) {
+            if (_readyPlayers.add(player))
+                counter.ready++;
+        }
+        else if (_readyPlayers.remove(player)) {
+            counter.ready--;
         }
 
-        // no players in group are in the collection so remove group
-        _groups.remove(group);
+        _cachedNextGroup.reset();
+        _cachedReadyGroup = null;
+    }
+
+    /**
+     * Update the group counts after a player in the collection
+     * is moved to a different group.
+     *
+     * <p>Ignored if the player is not in the collection.</p>
+     */
+    public void updateGroup(IArenaPlayer player) {
+        PreCon.notNull(player);
+
+        if (!_players.contains(player))
+            return;
+
+        _cachedNextGroup.reset();
+        _cachedReadyGroup = null;
+
+        unindexGroup(player);
+
+        IArenaPlayerGroup group = player.getPlayerGroup();
+        if (group != null)
+            indexGroup(player, group);
     }
 
     /**
@@ -160,27 +240,30 @@ public class ArenaPlayersCollection {
     public void tell(CharSequence message, Object... params) {
         PreCon.notNullOrEmpty(message);
 
-        for (IArenaPlayer player : _players) {
-
-            if (!(player instanceof IBukkitPlayer))
-                continue;
-
-            Msg.tell(((IBukkitPlayer) player).getPlayer(), message, params);
-        }
+        Broadcast.tell(_players, message, params);
     }
 
     /**
      * Get all player groups in the collection.
      */
     public Set<IArenaPlayerGroup> getGroups() {
-        return CollectionUtils.unmodifiableSet(_groups);
+        return CollectionUtils.unmodifiableSet(_groups.keySet());
     }
 
     /**
      * Get all players in the collection.
+     *
+     * <p>The returned collection is an unmodifiable snapshot that is shared
+     * between callers until players are added or removed. Changes to the
+     * collection membership are not reflected in a snapshot that was already
+     * returned so it is safe to add or remove players while iterating.</p>
      */
     public IArenaPlayerCollection getPlayers() {
-        return new ArenaPlayerArrayList(_players, true);
+
+        if (_snapshot == null)
+            _snapshot = new ArenaPlayerArrayList(_players, true);
+
+        return _snapshot;
     }
 
     /**
@@ -190,14 +273,21 @@ public class ArenaPlayersCollection {
     public List<IArenaPlayer> getTeam(ArenaTeam team) {
         PreCon.notNull(team);
 
-        List<IArenaPlayer> results = new ArrayList<>(20);
+        Set<IArenaPlayer> players = _teams.get(team);
+        if (players == null)
+            return new ArrayList<>(0);
 
-        for (IArenaPlayer player : _players) {
-            if (player.getTeam() == team) {
-                results.add(player);
-            }
-        }
-        return results;
+        return new ArrayList<>(players);
+    }
+
+    /**
+     * Get the number of players in the collection who are on the specified team.
+     */
+    public int teamSize(ArenaTeam team) {
+        PreCon.notNull(team);
+
+        Set<IArenaPlayer> players = _teams.get(team);
+        return players == null ? 0 : players.size();
     }
 
     /**
@@ -205,10 +295,7 @@ public class ArenaPlayersCollection {
      */
     public Set<ArenaTeam> getTeams() {
         Set<ArenaTeam> results = EnumSet.noneOf(ArenaTeam.class);
-
-        for (IArenaPlayer player : _players) {
-            results.add(player.getTeam());
-        }
+        results.addAll(_teams.keySet());
         return results;
     }
 
@@ -221,8 +308,11 @@ public class ArenaPlayersCollection {
         if (_cachedReadyGroup != null)
             return _cachedReadyGroup;
 
-        for (IArenaPlayerGroup group : _groups) {
-            if (group.isReady(_players)) {
+        for (Map.Entry<IArenaPlayerGroup, GroupCounter> entry : _groups.entrySet()) {
+
+            IArenaPlayerGroup group = entry.getKey();
+
+            if (entry.getValue().isReady()) {
                 _cachedReadyGroup = group.filterPlayers(_players);
                 return _cachedReadyGroup;
             }
@@ -240,8 +330,11 @@ public class ArenaPlayersCollection {
         if (_cachedReadyGroup != null)
             return _cachedReadyGroup;
 
-        for (IArenaPlayerGroup group : _groups) {
-            if (group.isReady(_players) && group.size(_arena) >= minGroupSize) {
+        for (Map.Entry<IArenaPlayerGroup, GroupCounter> entry : _groups.entrySet()) {
+
+            IArenaPlayerGroup group = entry.getKey();
+
+            if (entry.getValue().isReady() && group.size(_arena) >= minGroupSize) {
 
                 _cachedReadyGroup = group.filterPlayers(_players);
                 return _cachedReadyGroup;
@@ -267,6 +360,85 @@ public class ArenaPlayersCollection {
         return getReadyGroup(minGroupSize) != null;
     }
 
+    /*
+     * Move players in the collection to their new team in the team index.
+     */
+    @EventMethod(priority = EventSubscriberPriority.FIRST)
+    private void onTeamChanged(PlayerTeamChangedEvent event) {
+
+        IArenaPlayer player = event.getPlayer();
+
+        if (!_playerTeams.containsKey(player))
+            return;
+
+        unindexTeam(player);
+        indexTeam(player, player.getTeam());
+    }
+
+    private void indexTeam(IArenaPlayer player, ArenaTeam team) {
+
+        Set<IArenaPlayer> players = _teams.get(team);
+        if (players == null) {
+            players = new HashSet<>(10);
+            _teams.put(team, players);
+        }
+
+        players.add(player);
+        _playerTeams.put(player, team);
+    }
+
+    private void unindexTeam(IArenaPlayer player) {
+
+        ArenaTeam team = _playerTeams.remove(player);
+        if (team == null)
+            return;
+
+        Set<IArenaPlayer> players = _teams.get(team);
+        if (players == null)
+            return;
+
+        players.remove(player);
+
+        if (players.isEmpty())
+            _teams.remove(team);
+    }
+
+    private void indexGroup(IArenaPlayer player, IArenaPlayerGroup group) {
+
+        GroupCounter counter = _groups.get(group);
+        if (counter == null) {
+            counter = new GroupCounter();
+            _groups.put(group, counter);
+        }
+
+        counter.total++;
+
+        if (player.isReady() && _readyPlayers.add(player))
+            counter.ready++;
+
+        _playerGroups.put(player, group);
+    }
+
+    private void unindexGroup(IArenaPlayer player) {
+
+        IArenaPlayerGroup group = _playerGroups.remove(player);
+        if (group == null)
+            return;
+
+        GroupCounter counter = _groups.get(group);
+        if (counter == null)
+            return;
+
+        counter.total--;
+
+        if (_readyPlayers.remove(player))
+            counter.ready--;
+
+        // no players in group are in the collection so remove group
+        if (counter.total <= 0)
+            _groups.remove(group);
+    }
+
     /**
      * Get the next group to play in the PlayerGroups arena who has players in the lobby
      * and meets the minimum number specified.
@@ -279,7 +451,7 @@ public class ArenaPlayersCollection {
         if (_cachedNextGroup.keyEquals(minSize))
             return _cachedNextGroup.getValue();
 
-        for (IArenaPlayerGroup group : _groups) {
+        for (IArenaPlayerGroup group : _groups.keySet()) {
 
             // find a group with  players who meet the minimum group size
             IArenaPlayerCollection players = group.filterPlayers(_players);
@@ -296,4 +468,17 @@ public class ArenaPlayersCollection {
         _cachedNextGroup.set(minSize, result);
         return result;
     }
+
+    /*
+     * Number of players from a group that are in the collection
+     * and how many of them are ready.
+     */
+    private static class GroupCounter {
+        int total;
+        int ready;
+
+        boolean isReady() {
+            return ready >= total;
+        }
+    }
 }
@@ -0,0 +1,414 @@
+/*
+ * This file is part of PV-Star for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.pvs;
+
+import com.jcwhatever.nucleus.managed.language.Localizable;
+import com.jcwhatever.nucleus.managed.scheduler.IScheduledTask;
+import com.jcwhatever.nucleus.managed.scheduler.Scheduler;
+import com.jcwhatever.nucleus.utils.PreCon;
+import com.jcwhatever.pvs.api.PVStarAPI;
+import com.jcwhatever.pvs.api.arena.IArena;
+import com.jcwhatever.pvs.api.arena.IArenaPlayer;
+import com.jcwhatever.pvs.api.arena.IArenaPlayerGroup;
+import com.jcwhatever.pvs.api.arena.IBukkitPlayer;
+import com.jcwhatever.pvs.api.utils.Msg;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javax.annotation.Nullable;
+
+/**
+ * Matchmaking queue that places waiting players into the first arena
+ * of a requested type that can accept them.
+ *
+ * <p>Players in the same {@link IArenaPlayerGroup} who are not in an arena are
+ * queued together and only placed into an arena with enough slots for all
+ * of them. If a member fails to join, the members who already joined are
+ * removed from the arena and the party keeps its place in the queue. Each
+ * queue pass places as many parties as possible into all arenas of the type.</p>
+ */
+public class ArenaQueue {
+
+    @Localizable static final String _ARENA_FOUND =
+            "Found arena '{0: arena name}' after {1: seconds} seconds.";
+
+    @Localizable static final String _PARTY_NOT_PLACED =
+            "Your party could not join arena '{0: arena name}' together and remains queued.";
+
+    private static final int PROCESS_INTERVAL_TICKS = 20;
+
+    private final ArenaManager _arenaManager;
+
+    // queued parties by lower case arena type, in queue order
+    private final Map<String, LinkedList<QueuedParty>> _queues = new LinkedHashMap<>(5);
+    private final Map<UUID, QueuedParty> _players = new HashMap<>(20);
+
+    private IScheduledTask _task;
+
+    private long _totalPlaced;
+    private long _totalWaitMillis;
+    private long _lastWaitMillis;
+    private long _maxWaitMillis;
+
+    /**
+     * Constructor.
+     *
+     * @param arenaManager  The owning arena manager.
+     */
+    ArenaQueue(ArenaManager arenaManager) {
+        _arenaManager = arenaManager;
+    }
+
+    /**
+     * Add a player and the players party to the queue for the specified arena type.
+     *
+     * <p>If the player or members of their party are already queued, they are moved
+     * to the new queue.</p>
+     *
+     * @param player    The player to queue.
+     * @param typeName  The arena type display name.
+     *
+     * @return  False if the player is already in an arena or there are no
+     * arenas of the specified type.
+     */
+    public boolean enqueue(IArenaPlayer player, String typeName) {
+        PreCon.notNull(player);
+        PreCon.notNullOrEmpty(typeName);
+
+        if (player.getArena() != null)
+            return false;
+
+        String typeKey = typeName.toLowerCase();
+
+        if (getArenas(typeKey).isEmpty())
+            return false;
+
+        List<IArenaPlayer> members = new ArrayList<>(5);
+        members.add(player);
+
+        // add the rest of the party that is not in an arena
+        IArenaPlayerGroup group = player.getPlayerGroup();
+        if (group != null) {
+            for (IArenaPlayer member : group.getPlayers()) {
+                if (!member.equals(player) && member.getArena() == null)
+                    members.add(member);
+            }
+        }
+
+        for (IArenaPlayer member : members) {
+            remove(member);
+        }
+
+        QueuedParty party = new QueuedParty(typeKey, members);
+
+        LinkedList<QueuedParty> queue = _queues.get(typeKey);
+        if (queue == null) {
+            queue = new LinkedList<>();
+            _queues.put(typeKey, queue);
+        }
+
+        queue.add(party);
+
+        for (IArenaPlayer member : members) {
+            _players.put(member.getUniqueId(), party);
+        }
+
+        if (_task == null) {
+            _task = Scheduler.runTaskRepeat(PVStarAPI.getPlugin(),
+                    PROCESS_INTERVAL_TICKS, PROCESS_INTERVAL_TICKS, new Runnable() {
+                        @Override
+                        public void run() {
+                            process();
+                        }
+                    });
+        }
+
+        // try to place right away
+        process();
+
+        return true;
+    }
+
+    /**
+     * Remove a player from the queue.
+     *
+     * <p>The rest of the players party remains queued.</p>
+     *
+     * @param player  The player to remove.
+     *
+     * @return  True if the player was queued.
+     */
+    public boolean dequeue(IArenaPlayer player) {
+        PreCon.notNull(player);
+
+        return remove(player);
+    }
+
+    /**
+     * Determine if a player is queued.
+     */
+    public boolean isQueued(IArenaPlayer player) {
+        PreCon.notNull(player);
+
+        return _players.containsKey(player.getUniqueId());
+    }
+
+    /**
+     * Get the arena type a player is queued for.
+     *
+     * @return  The lower case type name or null if the player is not queued.
+     */
+    @Nullable
+    public String getQueuedType(IArenaPlayer player) {
+        PreCon.notNull(player);
+
+        QueuedParty party = _players.get(player.getUniqueId());
+        return party != null ? party.typeKey : null;
+    }
+
+    /**
+     * Get the number of milliseconds a player has been waiting in the queue.
+     *
+     * @return  The wait time or -1 if the player is not queued.
+     */
+    public long getWaitMillis(IArenaPlayer player) {
+        PreCon.notNull(player);
+
+        QueuedParty party = _players.get(player.getUniqueId());
+        return party != null ? System.currentTimeMillis() - party.queuedTime : -1;
+    }
+
+    /**
+     * Get the number of players waiting in the queue.
+     */
+    public int size() {
+        return _players.size();
+    }
+
+    /**
+     * Get the number of parties placed into arenas.
+     */
+    public long getTotalPlaced() {
+        return _totalPlaced;
+    }
+
+    /**
+     * Get the average number of milliseconds placed parties waited.
+     */
+    public long getAverageWaitMillis() {
+        return _totalPlaced == 0 ? 0 : _totalWaitMillis / _totalPlaced;
+    }
+
+    /**
+     * Get the number of milliseconds the last placed party waited.
+     */
+    public long getLastWaitMillis() {
+        return _lastWaitMillis;
+    }
+
+    /**
+     * Get the longest number of milliseconds a placed party waited.
+     */
+    public long getMaxWaitMillis() {
+        return _maxWaitMillis;
+    }
+
+    /*
+     * Place queued parties into arenas.
+     */
+    private void process() {
+
+        Iterator<Map.Entry<String, LinkedList<QueuedParty>>> queueIterator =
+                _queues.entrySet().iterator();
+
+        while (queueIterator.hasNext()) {
+
+            Map.Entry<String, LinkedList<QueuedParty>> entry = queueIterator.next();
+
+            List<IArena> arenas = getArenas(entry.getKey());
+            LinkedList<QueuedParty> queue = entry.getValue();
+
+            Iterator<QueuedParty> iterator = queue.iterator();
+
+            while (iterator.hasNext()) {
+
+                QueuedParty party = iterator.next();
+
+                // drop members who went offline or joined an arena on their own
+                party.prune();
+
+                if (party.members.isEmpty()) {
+                    iterator.remove();
+                    continue;
+                }
+
+                IArena arena = findArena(arenas, party.members.size());
+                if (arena == null || !place(party, arena))
+                    continue;
+
+                iterator.remove();
+            }
+
+            if (queue.isEmpty())
+                queueIterator.remove();
+        }
+
+        if (_queues.isEmpty() && _task != null) {
+            _task.cancel();
+            _task = null;
+        }
+    }
+
+    /*
+     * Join a party into an arena and record the wait time. If a member
+     * fails to join, the members who joined are removed from the arena
+     * and false is returned so the party stays queued.
+     */
+    private boolean place(QueuedParty party, IArena arena) {
+
+        List<IArenaPlayer> joined = new ArrayList<>(party.members.size());
+
+        for (IArenaPlayer member : party.members) {
+
+            if (!arena.join(member)) {
+
+                for (IArenaPlayer joinedMember : joined) {
+                    joinedMember.leaveArena();
+                }
+
+                for (IArenaPlayer queuedMember : party.members) {
+                    tell(queuedMember, Lang.get(_PARTY_NOT_PLACED, arena.getName()).toString());
+                }
+
+                return false;
+            }
+
+            joined.add(member);
+        }
+
+        long waitMillis = System.currentTimeMillis() - party.queuedTime;
+
+        _totalPlaced++;
+        _totalWaitMillis += waitMillis;
+        _lastWaitMillis = waitMillis;
+        _maxWaitMillis = Math.max(_maxWaitMillis, waitMillis);
+
+        for (IArenaPlayer member : party.members) {
+
+            _players.remove(member.getUniqueId());
+
+            tell(member, Lang.get(_ARENA_FOUND, arena.getName(), waitMillis / 1000).toString());
+        }
+
+        return true;
+    }
+
+    /*
+     * Get the first arena that can accept a party of the specified size.
+     */
+    @Nullable
+    private IArena findArena(List<IArena> arenas, int partySize) {
+
+        for (IArena arena : arenas) {
+            if (arena.canJoin() && arena.getAvailableSlots() >= partySize)
+                return arena;
+        }
+        return null;
+    }
+
+    /*
+     * Get all arenas of a type.
+     */
+    private List<IArena> getArenas(String typeKey) {
+
+        List<IArena> arenas = _arenaManager.getArenas();
+        List<IArena> results = new ArrayList<>(arenas.size());
+
+        for (IArena arena : arenas) {
+            if (arena.getSettings().getTypeDisplayName().toLowerCase().equals(typeKey))
+                results.add(arena);
+        }
+
+        return results;
+    }
+
+    /*
+     * Remove a player from the party they are queued in.
+     */
+    private boolean remove(IArenaPlayer player) {
+
+        QueuedParty party = _players.remove(player.getUniqueId());
+        if (party == null)
+            return false;
+
+        party.members.remove(player);
+
+        if (party.members.isEmpty()) {
+            LinkedList<QueuedParty> queue = _queues.get(party.typeKey);
+            if (queue != null)
+                queue.remove(party);
+        }
+
+        return true;
+    }
+
+    private void tell(IArenaPlayer player, String message) {
+        if (player instanceof IBukkitPlayer)
+            Msg.tell(((IBukkitPlayer) player).getPlayer(), message);
+    }
+
+    private class QueuedParty {
+
+        final String typeKey;
+        final List<IArenaPlayer> members;
+        final long queuedTime = System.currentTimeMillis();
+
+        QueuedParty(String typeKey, List<IArenaPlayer> members) {
+            this.typeKey = typeKey;
+            this.members = members;
+        }
+
+        void prune() {
+
+            Iterator<IArenaPlayer> iterator = members.iterator();
+
+            while (iterator.hasNext()) {
+
+                IArenaPlayer member = iterator.next();
+
+                if (!member.isOnline() || member.getArena() != null) {
+                    iterator.remove();
+                    _players.remove(member.getUniqueId());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * This file is part of PV-Star for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.pvs;
+
+import com.jcwhatever.nucleus.utils.PreCon;
+import com.jcwhatever.nucleus.utils.text.TextUtils;
+import com.jcwhatever.pvs.api.arena.IArenaPlayer;
+import com.jcwhatever.pvs.api.arena.IBukkitPlayer;
+
+/**
+ * Sends a chat message to many arena players.
+ *
+ * <p>The message is formatted and prefixed once, then the result is sent to
+ * each recipient instead of formatting the message again per player.</p>
+ */
+public final class Broadcast {
+
+    private Broadcast() {}
+
+    /**
+     * Tell a message to all Bukkit players in a collection. Npc players are skipped.
+     *
+     * @param players  The players to tell.
+     * @param message  The message template.
+     * @param params   Optional format parameters.
+     */
+    public static void tell(Iterable<? extends IArenaPlayer> players,
+                            CharSequence message, Object... params) {
+        PreCon.notNull(players);
+        PreCon.notNullOrEmpty(message);
+        PreCon.notNull(params);
+
+        String rendered = null;
+
+        for (IArenaPlayer player : players) {
+
+            if (!(player instanceof IBukkitPlayer))
+                continue;
+
+            // render on first recipient
+            if (rendered == null)
+                rendered = render(message, params);
+
+            ((IBukkitPlayer) player).getPlayer().sendMessage(rendered);
+        }
+    }
+
+    /*
+     * Format a message and add the chat prefix.
+     */
+    private static String render(CharSequence message, Object... params) {
+
+        PVStar pvStar = PVStar.getPlugin(PVStar.class);
+        String prefix = pvStar != null ? pvStar.getChatPrefix() : "";
+
+        return prefix + TextUtils.format(message, params).toString();
+    }
+}
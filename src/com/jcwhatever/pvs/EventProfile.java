@@ -0,0 +1,142 @@
+/*
+ * This file is part of PV-Star for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.pvs;
+
+import com.jcwhatever.nucleus.utils.PreCon;
+
+/**
+ * Dispatch timings of one event type in a {@link PVEventManager}.
+ *
+ * <p>Every call is counted but only sampled calls are timed. Sample latencies are
+ * kept in power of 2 nanosecond buckets, so percentiles are upper bounds.</p>
+ */
+public class EventProfile {
+
+    private final Class<?> _eventClass;
+    private final long[] _histogram = new long[64];
+
+    private long _calls;
+    private long _samples;
+    private long _totalNanos;
+    private long _maxNanos;
+
+    /**
+     * Constructor.
+     *
+     * @param eventClass  The profiled event type.
+     */
+    public EventProfile(Class<?> eventClass) {
+        PreCon.notNull(eventClass);
+
+        _eventClass = eventClass;
+    }
+
+    /**
+     * Get the profiled event type.
+     */
+    public Class<?> getEventClass() {
+        return _eventClass;
+    }
+
+    /**
+     * Get the number of times the event was called.
+     */
+    public synchronized long getCalls() {
+        return _calls;
+    }
+
+    /**
+     * Get the number of timed calls.
+     */
+    public synchronized long getSamples() {
+        return _samples;
+    }
+
+    /**
+     * Get the average dispatch time of timed calls in nanoseconds.
+     */
+    public synchronized long getAverageNanos() {
+        return _samples == 0 ? 0 : _totalNanos / _samples;
+    }
+
+    /**
+     * Get the total dispatch time of all calls, estimated from the timed calls.
+     */
+    public synchronized long getEstimatedTotalNanos() {
+        return _samples == 0 ? 0 : (_totalNanos / _samples) * _calls;
+    }
+
+    /**
+     * Get the longest timed dispatch in nanoseconds.
+     */
+    public synchronized long getMaxNanos() {
+        return _maxNanos;
+    }
+
+    /**
+     * Get the upper bound of a dispatch time percentile in nanoseconds.
+     *
+     * @param percentile  The percentile. i.e. 0.99
+     */
+    public synchronized long getPercentileNanos(double percentile) {
+        PreCon.isValid(percentile > 0 && percentile <= 1, "percentile must be greater than 0 and at most 1.");
+
+        if (_samples == 0)
+            return 0;
+
+        long target = (long)Math.ceil(_samples * percentile);
+        long seen = 0;
+
+        for (int i = 0; i < _histogram.length; i++) {
+            seen += _histogram[i];
+
+            if (seen >= target)
+                return Math.min(_maxNanos, i == 62 ? Long.MAX_VALUE : (1L << (i + 1)) - 1);
+        }
+
+        return _maxNanos;
+    }
+
+    /*
+     * Count a call that was not timed.
+     */
+    synchronized void count() {
+        _calls++;
+    }
+
+    /*
+     * Count a timed call.
+     */
+    synchronized void sample(long nanos) {
+
+        nanos = Math.max(1, nanos);
+
+        _calls++;
+        _samples++;
+        _totalNanos += nanos;
+        _maxNanos = Math.max(_maxNanos, nanos);
+        _histogram[63 - Long.numberOfLeadingZeros(nanos)]++;
+    }
+}
@@ -26,18 +26,205 @@ package com.jcwhatever.pvs;
 
 import com.jcwhatever.nucleus.Nucleus;
 import com.jcwhatever.nucleus.events.manager.EventManager;
+import com.jcwhatever.nucleus.events.manager.EventMethod;
+import com.jcwhatever.nucleus.events.manager.IEventListener;
+import com.jcwhatever.nucleus.utils.PreCon;
+import com.jcwhatever.nucleus.utils.observer.event.IEventSubscriber;
+import com.jcwhatever.pvs.api.arena.IArena;
+import org.bukkit.plugin.Plugin;
 
-/*
- * 
+import javax.annotation.Nullable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * PV-Star event manager.
+ *
+ * <p>Keeps track of the event types that have subscribers so that forwarded
+ * Bukkit events can be skipped when nothing would receive them. Types registered
+ * with an event subscriber instead of a listener are never removed since
+ * the subscriber may be disposed without notifying the manager.</p>
+ *
+ * <p>Event calls can also be profiled per event type. Profiling is off by
+ * default and is enabled for all managers with {@link #setProfiling}.</p>
  */
 public class PVEventManager extends EventManager {
 
+    // event types handled by @EventMethod's of listener classes
+    private static final Map<Class<?>, List<Class<?>>> LISTENER_TYPES = new ConcurrentHashMap<>(30);
+
+    // subscribed event types across all PV-Star event managers
+    private static final SubscriberCounter GLOBAL = new SubscriberCounter();
+
+    // 1 out of every n calls is timed, 0 or less to disable profiling
+    private static volatile int PROFILE_SAMPLE_INTERVAL = 0;
+
+    private final PVEventManager _parent;
+    private final boolean _hasForeignParent;
+    private final IArena _arena;
+    private final SubscriberCounter _subscribed = new SubscriberCounter();
+
+    // listeners counted in _subscribed, so repeated or unmatched calls to
+    // register or unregister do not change the counts of other listeners.
+    private final Set<IEventListener> _listeners = Collections.synchronizedSet(
+            Collections.newSetFromMap(new IdentityHashMap<IEventListener, Boolean>(10)));
+    private final ConcurrentMap<Class<?>, EventProfile> _profiles = new ConcurrentHashMap<>(30);
+    private int _profileCalls;
+
     public PVEventManager() {
         super(Nucleus.getPlugin());
+
+        _parent = null;
+        _hasForeignParent = false;
+        _arena = null;
     }
 
     public PVEventManager(EventManager parent) {
+        this(parent, null);
+    }
+
+    public PVEventManager(EventManager parent, @Nullable IArena arena) {
         super(Nucleus.getPlugin(), parent);
+
+        _parent = parent instanceof PVEventManager ? (PVEventManager) parent : null;
+        _hasForeignParent = _parent == null;
+        _arena = arena;
+    }
+
+    /**
+     * Enable or disable event call profiling for all PV-Star event managers.
+     *
+     * @param sampleInterval  Time 1 out of every specified number of calls. 0 or
+     *                        less to disable.
+     */
+    public static void setProfiling(int sampleInterval) {
+        PROFILE_SAMPLE_INTERVAL = sampleInterval;
+    }
+
+    /**
+     * Get the profiling sample interval.
+     *
+     * @return  The interval or 0 or less if profiling is disabled.
+     */
+    public static int getProfileSampleInterval() {
+        return PROFILE_SAMPLE_INTERVAL;
+    }
+
+    /**
+     * Get the arena that owns the manager.
+     *
+     * @return  The arena or null if the manager is not an arena manager.
+     */
+    @Nullable
+    public IArena getArena() {
+        return _arena;
+    }
+
+    /**
+     * Get the event call profiles of the manager.
+     */
+    public List<EventProfile> getProfiles() {
+        return new ArrayList<>(_profiles.values());
+    }
+
+    /**
+     * Clear the event call profiles of the manager.
+     */
+    public void resetProfiles() {
+        _profiles.clear();
+    }
+
+    @Override
+    public <T> T call(Object caller, T event) {
+
+        int interval = PROFILE_SAMPLE_INTERVAL;
+        if (interval <= 0)
+            return super.call(caller, event);
+
+        EventProfile profile = _profiles.get(event.getClass());
+        if (profile == null) {
+            profile = new EventProfile(event.getClass());
+            EventProfile current = _profiles.putIfAbsent(event.getClass(), profile);
+            if (current != null)
+                profile = current;
+        }
+
+        if (++_profileCalls % interval != 0) {
+            profile.count();
+            return super.call(caller, event);
+        }
+
+        long start = System.nanoTime();
+        T result = super.call(caller, event);
+        profile.sample(System.nanoTime() - start);
+
+        return result;
+    }
+
+    /**
+     * Determine if any PV-Star event manager might have a subscriber for
+     * the specified event type.
+     */
+    public static boolean hasAnySubscribers(Class<?> eventClass) {
+        PreCon.notNull(eventClass);
+
+        return GLOBAL.isSubscribed(eventClass);
+    }
+
+    /**
+     * Determine if calling an event of the specified type on the manager
+     * might reach a subscriber, either in the manager or its parent.
+     */
+    public boolean hasSubscribers(Class<?> eventClass) {
+        PreCon.notNull(eventClass);
+
+        // subscribers of an unknown parent cannot be checked
+        if (_hasForeignParent)
+            return true;
+
+        return _subscribed.isSubscribed(eventClass) ||
+                (_parent != null && _parent.hasSubscribers(eventClass));
+    }
+
+    @Override
+    public void register(IEventListener eventListener) {
+        super.register(eventListener);
+
+        if (!_listeners.add(eventListener))
+            return;
+
+        for (Class<?> eventClass : getListenerTypes(eventListener.getClass())) {
+            _subscribed.add(eventClass);
+            GLOBAL.add(eventClass);
+        }
+    }
+
+    @Override
+    public <T> void register(Plugin plugin, Class<T> eventClass, IEventSubscriber<T> subscriber) {
+        super.register(plugin, eventClass, subscriber);
+
+        _subscribed.add(eventClass);
+        GLOBAL.add(eventClass);
+    }
+
+    @Override
+    public void unregister(IEventListener eventListener) {
+        super.unregister(eventListener);
+
+        if (!_listeners.remove(eventListener))
+            return;
+
+        for (Class<?> eventClass : getListenerTypes(eventListener.getClass())) {
+            _subscribed.remove(eventClass);
+            GLOBAL.remove(eventClass);
+        }
     }
 
     @Override
@@ -47,5 +234,98 @@ public class PVEventManager extends EventManager {
 
     public void forceDispose() {
         super.dispose();
+
+        _listeners.clear();
+        GLOBAL.removeAll(_subscribed);
+    }
+
+    /*
+     * Get the event types handled by a listener class.
+     */
+    private static List<Class<?>> getListenerTypes(Class<?> listenerClass) {
+
+        List<Class<?>> types = LISTENER_TYPES.get(listenerClass);
+        if (types != null)
+            return types;
+
+        types = new ArrayList<>(5);
+
+        Class<?> current = listenerClass;
+
+        while (current != null && current != Object.class) {
+
+            for (Method method : current.getDeclaredMethods()) {
+
+                if (!method.isAnnotationPresent(EventMethod.class))
+                    continue;
+
+                Class<?>[] params = method.getParameterTypes();
+                if (params.length != 1)
+                    continue;
+
+                types.add(params[0]);
+            }
+
+            current = current.getSuperclass();
+        }
+
+        LISTENER_TYPES.put(listenerClass, types);
+        return types;
+    }
+
+    /*
+     * Reference counts of subscribed event types and a cache of which
+     * concrete event types have a subscribed super type.
+     */
+    private static class SubscriberCounter {
+
+        final ConcurrentMap<Class<?>, Integer> counts = new ConcurrentHashMap<>(30);
+        final ConcurrentMap<Class<?>, Boolean> cache = new ConcurrentHashMap<>(30);
+
+        boolean isSubscribed(Class<?> eventClass) {
+
+            Boolean isSubscribed = cache.get(eventClass);
+            if (isSubscribed != null)
+                return isSubscribed;
+
+            isSubscribed = false;
+
+            for (Class<?> subscribed : counts.keySet()) {
+                if (subscribed.isAssignableFrom(eventClass)) {
+                    isSubscribed = true;
+                    break;
+                }
+            }
+
+            cache.put(eventClass, isSubscribed);
+            return isSubscribed;
+        }
+
+        synchronized void add(Class<?> eventClass) {
+            Integer count = counts.get(eventClass);
+            counts.put(eventClass, count == null ? 1 : count + 1);
+            cache.clear();
+        }
+
+        synchronized void remove(Class<?> eventClass) {
+            Integer count = counts.get(eventClass);
+            if (count == null)
+                return;
+
+            if (count <= 1)
+                counts.remove(eventClass);
+            else
+                counts.put(eventClass, count - 1);
+
+            cache.clear();
+        }
+
+        synchronized void removeAll(SubscriberCounter counter) {
+            for (Map.Entry<Class<?>, Integer> entry : counter.counts.entrySet()) {
+                for (int i = 0; i < entry.getValue(); i++) {
+                    remove(entry.getKey());
+                }
+            }
+        }
     }
 }
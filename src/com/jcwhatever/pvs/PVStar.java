@@ -51,9 +51,11 @@ import com.jcwhatever.pvs.api.points.IPointsManager;
 import com.jcwhatever.pvs.api.spawns.ISpawnTypeManager;
 import com.jcwhatever.pvs.api.stats.IStatsManager;
 import com.jcwhatever.pvs.api.utils.Msg;
+import com.jcwhatever.pvs.arenas.AbstractArena;
 import com.jcwhatever.pvs.arenas.Arena;
 import com.jcwhatever.pvs.commands.PVCommandHelper;
 import com.jcwhatever.pvs.commands.admin.arena.ArenaCommand;
+import com.jcwhatever.pvs.commands.admin.events.EventsCommand;
 import com.jcwhatever.pvs.commands.admin.ext.ExtCommand;
 import com.jcwhatever.pvs.commands.admin.game.GameCommand;
 import com.jcwhatever.pvs.commands.admin.lobby.LobbyCommand;
@@ -61,9 +63,11 @@ import com.jcwhatever.pvs.commands.admin.modules.ModulesCommand;
 import com.jcwhatever.pvs.commands.admin.points.PointsCommand;
 import com.jcwhatever.pvs.commands.admin.spawns.SpawnsCommand;
 import com.jcwhatever.pvs.commands.admin.spectator.SpectatorCommand;
+import com.jcwhatever.pvs.commands.admin.stats.StatsCommand;
 import com.jcwhatever.pvs.commands.users.JoinCommand;
 import com.jcwhatever.pvs.commands.users.LeaveCommand;
 import com.jcwhatever.pvs.commands.users.ListCommand;
+import com.jcwhatever.pvs.commands.users.QueueCommand;
 import com.jcwhatever.pvs.commands.users.VoteCommand;
 import com.jcwhatever.pvs.listeners.ArenaEventForwarder;
 import com.jcwhatever.pvs.listeners.MobEventListener;
@@ -97,7 +101,7 @@ public class PVStar extends NucleusPlugin implements IPVStar {
     private ModuleLoader _moduleLoader;
     private ArenaManager _arenaManager;
     private PVEventManager _eventManager;
-    private IStatsManager _statsManager;
+    private StatsManager _statsManager;
     private IPointsManager _pointsManager;
     private ExtensionTypeManager _extensionManager;
     private SpawnTypeManager _spawnTypeManager;
@@ -208,6 +212,16 @@ public class PVStar extends NucleusPlugin implements IPVStar {
         return _eventManager;
     }
 
+    /**
+     * Get the Bukkit event forwarder.
+     *
+     * @return  The forwarder or null if arenas are not loaded.
+     */
+    @Nullable
+    public ArenaEventForwarder getEventForwarder() {
+        return _eventForwarder;
+    }
+
     @Override
     @Nullable
     public PVStarModule getModule(String name) {
@@ -245,6 +259,7 @@ public class PVStar extends NucleusPlugin implements IPVStar {
 
         // admin commands
         registerCommand(ArenaCommand.class);
+        registerCommand(EventsCommand.class);
         registerCommand(ExtCommand.class);
         registerCommand(GameCommand.class);
         registerCommand(LobbyCommand.class);
@@ -252,11 +267,13 @@ public class PVStar extends NucleusPlugin implements IPVStar {
         registerCommand(PointsCommand.class);
         registerCommand(SpawnsCommand.class);
         registerCommand(SpectatorCommand.class);
+        registerCommand(StatsCommand.class);
 
         // user commands
         registerCommand(JoinCommand.class);
         registerCommand(LeaveCommand.class);
         registerCommand(ListCommand.class);
+        registerCommand(QueueCommand.class);
         registerCommand(VoteCommand.class);
 
         Msg.info("Loading modules...");
@@ -326,8 +343,15 @@ public class PVStar extends NucleusPlugin implements IPVStar {
         List<IArena> arenas = _arenaManager.getArenas();
         for (IArena arena : arenas) {
             arena.getGame().end();
+
+            // restore teleports queued by the game end must run before the task is lost
+            if (arena instanceof AbstractArena)
+                ((AbstractArena) arena).getTeleports().flush();
         }
 
+        // save statistics recorded by ended games and close journal files
+        _statsManager.close();
+
         Collection<PVStarModule> modules = _moduleLoader.getModules();
 
         for (PVStarModule module : modules) {
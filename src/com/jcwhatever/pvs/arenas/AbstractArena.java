@@ -27,6 +27,7 @@ package com.jcwhatever.pvs.arenas;
 import com.google.common.collect.MapMaker;
 import com.jcwhatever.nucleus.events.manager.IEventListener;
 import com.jcwhatever.nucleus.managed.language.Localizable;
+import com.jcwhatever.nucleus.managed.teleport.TeleportMode;
 import com.jcwhatever.nucleus.mixins.IDisposable;
 import com.jcwhatever.nucleus.providers.permissions.IPermission;
 import com.jcwhatever.nucleus.providers.permissions.Permissions;
@@ -64,6 +65,7 @@ import com.jcwhatever.pvs.arenas.context.LobbyContext;
 import com.jcwhatever.pvs.arenas.context.SpectatorContext;
 import com.jcwhatever.pvs.arenas.managers.SpawnManager;
 import com.jcwhatever.pvs.arenas.managers.TeamManager;
+import com.jcwhatever.pvs.arenas.managers.TeleportPipeline;
 import com.jcwhatever.pvs.arenas.settings.PVArenaSettings;
 import org.bukkit.Location;
 import org.bukkit.permissions.PermissionDefault;
@@ -119,6 +121,7 @@ public abstract class AbstractArena implements IArena, IDisposable, IEventListen
     private SpectatorContext _spectatorManager;
     private SpawnManager _spawnManager;
     private TeamManager _teamManager;
+    private TeleportPipeline _teleports;
     private ArenaExtensionManager _extensionManager;
     private PVArenaSettings _arenaSettings;
 
@@ -138,12 +141,19 @@ public abstract class AbstractArena implements IArena, IDisposable, IEventListen
         _searchName = name.toLowerCase();
         _typeInfo = getClass().getAnnotation(ArenaTypeInfo.class);
 
-        _eventManager = new PVEventManager(PVStarAPI.getEventManager());
+        _eventManager = new PVEventManager(PVStarAPI.getEventManager(), this);
 
         _dataNode = DataStorage.get(PVStarAPI.getPlugin(), new DataPath("arenas." + id.toString()));
         _dataNode.load();
 
-        _region = new ArenaRegion(this, _dataNode.getNode("region"));
+        _region = new ArenaRegion(this, _dataNode.getNode("region")) {
+            @Override
+            protected void onCoordsChanged(Location p1, Location p2) {
+                super.onCoordsChanged(p1, p2);
+
+                onRegionChanged();
+            }
+        };
 
         // get data folder
         File arenaFolder = new File(PVStarAPI.getPlugin().getDataFolder(), "arenas");
@@ -161,6 +171,7 @@ public abstract class AbstractArena implements IArena, IDisposable, IEventListen
         _spectatorManager = new SpectatorContext(this);
         _spawnManager = new SpawnManager(this);
         _teamManager = new TeamManager(this);
+        _teleports = new TeleportPipeline(this);
         _extensionManager = new ArenaExtensionManager(this);
 
         getEventManager().register(this);
@@ -214,6 +225,13 @@ public abstract class AbstractArena implements IArena, IDisposable, IEventListen
         return _spawnManager;
     }
 
+    /**
+     * Get the arenas player teleport pipeline.
+     */
+    public final TeleportPipeline getTeleports() {
+        return _teleports;
+    }
+
     @Override
     public final ArenaExtensionManager getExtensions() {
         return _extensionManager;
@@ -400,7 +418,8 @@ public abstract class AbstractArena implements IArena, IDisposable, IEventListen
                         ((ArenaPlayer)player).setDeathRespawnLocation(leaveEvent.getRestoreLocation());
                     }
                     else {
-                        player.teleport(leaveEvent.getRestoreLocation());
+                        _teleports.teleport(player, leaveEvent.getRestoreLocation(),
+                                TeleportMode.TARGET_ONLY, null, null);
                     }
                 }
 
@@ -423,6 +442,9 @@ public abstract class AbstractArena implements IArena, IDisposable, IEventListen
 
         onDispose();
 
+        // run teleports still queued, i.e. restore teleports of removed players
+        _teleports.flush();
+
         Permissions.unregister("pvstar.arena." + _id.toString());
 
         getEventManager().call(this, new ArenaDisposeEvent(this));
@@ -440,6 +462,21 @@ public abstract class AbstractArena implements IArena, IDisposable, IEventListen
         return _name;
     }
 
+    /*
+     * Rebuild the arena manager region index after the region coordinates
+     * are changed. Ignored while the arena is loading or after it is removed.
+     */
+    private void onRegionChanged() {
+
+        if (!(PVStarAPI.getArenaManager() instanceof ArenaManager))
+            return;
+
+        ArenaManager manager = (ArenaManager)PVStarAPI.getArenaManager();
+
+        if (manager.getArena(_id) == this)
+            manager.updateRegionIndex();
+    }
+
     /*
      * Invoked when the arena is initialized.
      */
@@ -41,6 +41,7 @@ import com.jcwhatever.pvs.api.events.players.PlayerPreRemoveFromContextEvent;
 import com.jcwhatever.pvs.api.events.players.PlayerRemovedFromContextEvent;
 import com.jcwhatever.pvs.api.spawns.Spawnpoint;
 import com.jcwhatever.pvs.arenas.AbstractArena;
+import com.jcwhatever.pvs.arenas.managers.TeleportPipeline.ITeleportHandler;
 import com.jcwhatever.pvs.players.ArenaPlayer;
 import org.bukkit.Location;
 
@@ -55,6 +56,22 @@ public abstract class AbstractContextManager implements IContextManager {
     private final AbstractArena _arena;
     protected final ArenaPlayersCollection _players;
 
+    // call spawned event after player is teleported into the context
+    private final ITeleportHandler _spawnHandler = new ITeleportHandler() {
+        @Override
+        public void onTeleport(IArenaPlayer player, Location location, boolean isSuccess) {
+
+            if (!isSuccess) {
+                getArena().getSpawns().unreserve(player);
+                return;
+            }
+
+            PlayerArenaSpawnedEvent spawnEvent = new PlayerArenaSpawnedEvent(
+                    _arena, player, AbstractContextManager.this, location);
+            _arena.getEventManager().call(AbstractContextManager.this, spawnEvent);
+        }
+    };
+
     /*
      * Constructor.
      */
@@ -100,6 +117,7 @@ public abstract class AbstractContextManager implements IContextManager {
         _players.addPlayer(player);
 
         ((ArenaPlayer)player).setCurrentArena(_arena);
+        ((ArenaPlayer)player).setContextManager(this);
 
         Location spawnPoint = onPrePlayerAdd(player, reason);
 
@@ -112,22 +130,20 @@ public abstract class AbstractContextManager implements IContextManager {
         TeleportMode teleportMode = getSettings().getTeleportMode();
         Location location = contextEvent.getSpawnLocation();
         // teleport player to spawn location from event
-        if (contextEvent.getSpawnLocation() != null
-                && player.teleport(location, teleportMode)) {
-
-            PlayerArenaSpawnedEvent spawnEvent = new PlayerArenaSpawnedEvent(
-                    _arena, player, this, contextEvent.getSpawnLocation());
-            _arena.getEventManager().call(this, spawnEvent);
+        if (location != null) {
 
-            // reserve spawnpoint
-            if (contextEvent.getSpawnLocation() instanceof Spawnpoint) {
+            // reserve spawnpoint before the teleport so that batched
+            // teleports do not select the same spawn
+            if (location instanceof Spawnpoint) {
                 IContextSettings settings = player.getContextSettings();
                 if (settings != null && settings.isPlayerSpawnsReserved()) {
 
-                    getArena().getSpawns().reserve(player, (Spawnpoint) contextEvent.getSpawnLocation());
+                    getArena().getSpawns().reserve(player, (Spawnpoint) location);
 
                 }
             }
+
+            _arena.getTeleports().teleport(player, location, teleportMode, this, _spawnHandler);
         }
 
         // display message from event
@@ -162,6 +178,9 @@ public abstract class AbstractContextManager implements IContextManager {
         // remove player from collection
         _players.removePlayer(player, reason);
 
+        if (player.getContextManager() == this)
+            ((ArenaPlayer)player).setContextManager(null);
+
         Location restoreLocation = onRemovePlayer(player, reason);
 
         // call player removed event
@@ -173,6 +192,22 @@ public abstract class AbstractContextManager implements IContextManager {
         return new Result<>(true, restoreLocation);
     }
 
+    /**
+     * Invoked by {@link ArenaPlayer} when the ready state of a player
+     * in the context changes.
+     */
+    public void onPlayerReadyChanged(IArenaPlayer player) {
+        _players.updateReady(player);
+    }
+
+    /**
+     * Invoked by {@link ArenaPlayer} when a player in the context is
+     * moved to a different player group.
+     */
+    public void onPlayerGroupChanged(IArenaPlayer player) {
+        _players.updateGroup(player);
+    }
+
     /**
      * Invoked before a player is added.
      *
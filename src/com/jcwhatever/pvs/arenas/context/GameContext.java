@@ -64,13 +64,14 @@ import org.bukkit.Location;
 import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 
 /**
  * Game manager implementation
  */
 public class GameContext extends AbstractContextManager implements IGameContext {
 
-    private final IGameSettings _settings;
+    private final PVGameSettings _settings;
 
     private boolean _isRunning = false;
     private boolean _isGameOver = false;
@@ -173,8 +174,15 @@ public class GameContext extends AbstractContextManager implements IGameContext
 
         getArena().getEventManager().call(this, new ArenaEndedEvent(getArena()));
 
-        for (IArenaPlayer player : getPlayers()) {
-            getArena().remove(player, PlayerLeaveArenaReason.GAME_ENDED);
+        getArena().getTeleports().openBatch(_settings.getTeleportBudget());
+
+        try {
+            for (IArenaPlayer player : getPlayers()) {
+                getArena().remove(player, PlayerLeaveArenaReason.GAME_ENDED);
+            }
+        }
+        finally {
+            getArena().getTeleports().closeBatch();
         }
 
         return true;
@@ -259,7 +267,7 @@ public class GameContext extends AbstractContextManager implements IGameContext
         if (!isRunning())
             return false;
 
-        IArenaPlayerCollection winningTeam = new ArenaPlayerArrayList(getPlayers().size());
+        IArenaPlayerCollection winningTeam = new ArenaPlayerArrayList(_players.teamSize(team));
 
         for (IArenaPlayer player : getPlayers()) {
             if (player.getTeam() == team) {
@@ -298,14 +306,13 @@ public class GameContext extends AbstractContextManager implements IGameContext
         if (!isRunning())
             return false;
 
-        IArenaPlayerCollection losingTeam = new ArenaPlayerArrayList(getPlayers().size());
+        List<IArenaPlayer> teamPlayers = _players.getTeam(team);
+        IArenaPlayerCollection losingTeam = new ArenaPlayerArrayList(teamPlayers.size());
 
-        for (IArenaPlayer player : getPlayers()) {
-            if (player.getTeam() == team) {
-                losingTeam.add(player);
-                removePlayer(player, RemoveFromContextReason.LOSE);
-                ((ArenaPlayer)player).clearArena();
-            }
+        for (IArenaPlayer player : teamPlayers) {
+            losingTeam.add(player);
+            removePlayer(player, RemoveFromContextReason.LOSE);
+            ((ArenaPlayer)player).clearArena();
         }
 
         getArena().getEventManager().call(this,
@@ -378,12 +385,19 @@ public class GameContext extends AbstractContextManager implements IGameContext
 
         LobbyContext lobbyManager = getArena().getLobby();
 
-        // transfer players from lobby
-        for (IArenaPlayer player : players) {
+        getArena().getTeleports().openBatch(_settings.getTeleportBudget());
+
+        try {
+            // transfer players from lobby
+            for (IArenaPlayer player : players) {
 
-            lobbyManager.removePlayer(player, RemoveFromContextReason.CONTEXT_CHANGE);
+                lobbyManager.removePlayer(player, RemoveFromContextReason.CONTEXT_CHANGE);
 
-            addPlayer(player, AddToContextReason.CONTEXT_CHANGE);
+                addPlayer(player, AddToContextReason.CONTEXT_CHANGE);
+            }
+        }
+        finally {
+            getArena().getTeleports().closeBatch();
         }
 
         return true;
@@ -0,0 +1,320 @@
+/*
+ * This file is part of PV-Star for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.pvs.arenas.managers;
+
+import com.jcwhatever.nucleus.managed.scheduler.IScheduledTask;
+import com.jcwhatever.nucleus.managed.scheduler.Scheduler;
+import com.jcwhatever.nucleus.managed.teleport.TeleportMode;
+import com.jcwhatever.nucleus.utils.PreCon;
+import com.jcwhatever.pvs.api.PVStarAPI;
+import com.jcwhatever.pvs.api.arena.IArena;
+import com.jcwhatever.pvs.api.arena.IArenaPlayer;
+import com.jcwhatever.pvs.api.arena.context.IContextManager;
+import com.jcwhatever.pvs.api.utils.Msg;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Teleports arena players, optionally spreading a batch of teleports
+ * across multiple ticks.
+ *
+ * <p>While a batch is open, teleports are queued instead of run. When the
+ * batch is closed, the chunks of the queued locations are loaded and the
+ * players teleported a few at a time, using up to the batch time budget
+ * per tick. At least one chunk load or teleport is run each tick.</p>
+ *
+ * <p>Outside of a batch, or if the batch budget is 0, teleports are run
+ * immediately.</p>
+ */
+public class TeleportPipeline implements Runnable {
+
+    private final IArena _arena;
+    private final Deque<QueuedTeleport> _chunks = new ArrayDeque<>(20);
+    private final Deque<QueuedTeleport> _teleports = new ArrayDeque<>(20);
+
+    private int _openBatches;
+    private long _budgetNanos;
+    private IScheduledTask _task;
+
+    // current batch statistics
+    private long _batchStart;
+    private int _batchSize;
+    private int _batchTicks;
+
+    private long _lastBatchMillis;
+    private int _lastBatchSize;
+
+    /**
+     * Handles the result of a teleport.
+     */
+    public interface ITeleportHandler {
+
+        /**
+         * Invoked after the player is teleported or the teleport fails.
+         *
+         * @param player     The teleported player.
+         * @param location   The teleport destination.
+         * @param isSuccess  True if the player was teleported.
+         */
+        void onTeleport(IArenaPlayer player, Location location, boolean isSuccess);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param arena  The owning arena.
+     */
+    public TeleportPipeline(IArena arena) {
+        PreCon.notNull(arena);
+
+        _arena = arena;
+    }
+
+    /**
+     * Get the owning arena.
+     */
+    public IArena getArena() {
+        return _arena;
+    }
+
+    /**
+     * Determine if teleports are currently being queued.
+     */
+    public boolean isBatching() {
+        return _openBatches > 0 && _budgetNanos > 0;
+    }
+
+    /**
+     * Determine if there are queued teleports that have not run yet.
+     */
+    public boolean isBusy() {
+        return _task != null;
+    }
+
+    /**
+     * Get the number of milliseconds it took to complete the
+     * last batch, from the time it was closed.
+     */
+    public long getLastBatchMillis() {
+        return _lastBatchMillis;
+    }
+
+    /**
+     * Get the number of teleports in the last completed batch.
+     */
+    public int getLastBatchSize() {
+        return _lastBatchSize;
+    }
+
+    /**
+     * Start queueing teleports.
+     *
+     * <p>Batches may be nested. Queued teleports are not started until the
+     * outermost batch is closed.</p>
+     *
+     * @param budgetMillis  The max time to spend per tick on the batch. Ignored
+     *                      for nested batches. 0 or less to run teleports immediately.
+     */
+    public void openBatch(int budgetMillis) {
+
+        if (_openBatches == 0)
+            _budgetNanos = budgetMillis * 1000000L;
+
+        _openBatches++;
+    }
+
+    /**
+     * Close a batch opened with {@link #openBatch}.
+     *
+     * <p>When the outermost batch is closed, the queued teleports are started.</p>
+     */
+    public void closeBatch() {
+
+        if (_openBatches == 0)
+            throw new IllegalStateException("No teleport batch is open.");
+
+        _openBatches--;
+
+        if (_openBatches > 0 || _teleports.isEmpty() || _task != null)
+            return;
+
+        _batchStart = System.nanoTime();
+        _batchTicks = 0;
+
+        _task = Scheduler.runTaskRepeat(PVStarAPI.getPlugin(), 1, 1, this);
+    }
+
+    /**
+     * Teleport a player or queue the teleport if a batch is open.
+     *
+     * <p>A queued teleport is skipped if, by the time it is run, the player is no
+     * longer in the expected context manager.</p>
+     *
+     * @param player    The player to teleport.
+     * @param location  The destination.
+     * @param mode      The teleport mode.
+     * @param manager   The context manager the player is expected to be in or null
+     *                  if the player is expected to not be in a context.
+     * @param handler   Optional handler to invoke after the teleport.
+     */
+    public void teleport(IArenaPlayer player, Location location, TeleportMode mode,
+                         @Nullable IContextManager manager,
+                         @Nullable ITeleportHandler handler) {
+        PreCon.notNull(player);
+        PreCon.notNull(location);
+        PreCon.notNull(mode);
+
+        if (!isBatching() && _teleports.isEmpty()) {
+            boolean isSuccess = player.teleport(location, mode);
+
+            if (handler != null)
+                handler.onTeleport(player, location, isSuccess);
+
+            return;
+        }
+
+        QueuedTeleport teleport = new QueuedTeleport(player, location, mode, manager, handler);
+
+        _chunks.add(teleport);
+        _teleports.add(teleport);
+        _batchSize++;
+    }
+
+    /**
+     * Run all queued teleports immediately and stop the batch task.
+     *
+     * <p>Used when the arena is disposed or the plugin is disabled, so that
+     * queued teleports, such as restoring players that have left the arena,
+     * are not lost with the cancelled task.</p>
+     */
+    public void flush() {
+
+        while (!_chunks.isEmpty()) {
+            loadChunk(_chunks.poll().location);
+        }
+
+        int size = _teleports.size();
+
+        while (!_teleports.isEmpty()) {
+            _teleports.poll().run();
+        }
+
+        if (_task != null) {
+            _task.cancel();
+            _task = null;
+        }
+
+        _batchSize = 0;
+
+        if (size > 0) {
+            Msg.debug("Arena '{0}' flushed {1} queued teleports.", _arena.getName(), size);
+        }
+    }
+
+    @Override
+    public void run() {
+
+        long start = System.nanoTime();
+
+        _batchTicks++;
+
+        do {
+
+            // load destination chunks before any teleports are run
+            QueuedTeleport chunk = _chunks.poll();
+            if (chunk != null) {
+                loadChunk(chunk.location);
+                continue;
+            }
+
+            QueuedTeleport teleport = _teleports.poll();
+            if (teleport == null)
+                break;
+
+            teleport.run();
+
+        } while (System.nanoTime() - start < _budgetNanos);
+
+        if (!_teleports.isEmpty())
+            return;
+
+        _task.cancel();
+        _task = null;
+
+        _lastBatchMillis = (System.nanoTime() - _batchStart) / 1000000L;
+        _lastBatchSize = _batchSize;
+        _batchSize = 0;
+
+        Msg.debug("Arena '{0}' completed {1} batched teleports in {2}ms over {3} ticks.",
+                _arena.getName(), _lastBatchSize, _lastBatchMillis, _batchTicks);
+    }
+
+    private static void loadChunk(Location location) {
+
+        World world = location.getWorld();
+        if (world == null)
+            return;
+
+        int x = location.getBlockX() >> 4;
+        int z = location.getBlockZ() >> 4;
+
+        if (!world.isChunkLoaded(x, z))
+            world.loadChunk(x, z);
+    }
+
+    private static class QueuedTeleport {
+
+        final IArenaPlayer player;
+        final Location location;
+        final TeleportMode mode;
+        final IContextManager manager;
+        final ITeleportHandler handler;
+
+        QueuedTeleport(IArenaPlayer player, Location location, TeleportMode mode,
+                       @Nullable IContextManager manager, @Nullable ITeleportHandler handler) {
+            this.player = player;
+            this.location = location;
+            this.mode = mode;
+            this.manager = manager;
+            this.handler = handler;
+        }
+
+        void run() {
+
+            // player left or changed context while queued
+            if (player.getContextManager() != manager)
+                return;
+
+            boolean isSuccess = player.teleport(location, mode);
+
+            if (handler != null)
+                handler.onTeleport(player, location, isSuccess);
+        }
+    }
+}
@@ -51,6 +51,9 @@ public abstract class AbstractPlayerSettings implements IContextSettings {
     private int _maxDeathTicks = 20 * 20;
     private TeleportMode _teleportMode = TeleportMode.TARGET_ONLY;
 
+    // replaced, never modified, whenever a setting changes
+    private volatile SettingsFlags _flags;
+
     /*
      * Constructor.
      * nodeName is the name of the settings node.
@@ -74,6 +77,18 @@ public abstract class AbstractPlayerSettings implements IContextSettings {
         _isSpawnsReserved = _dataNode.getBoolean("spawns-reserved", _isSpawnsReserved);
         _maxDeathTicks = _dataNode.getInteger("max-death-ticks", _maxDeathTicks);
         _teleportMode = _dataNode.getEnum("teleport-mode", _teleportMode, TeleportMode.class);
+
+        _flags = SettingsFlags.of(this);
+    }
+
+    /**
+     * Get an immutable snapshot of the current boolean settings.
+     *
+     * <p>The returned instance is not updated when a setting is changed, a new
+     * snapshot replaces it instead.</p>
+     */
+    public final SettingsFlags getFlags() {
+        return _flags;
     }
 
     @Override
@@ -212,6 +227,8 @@ public abstract class AbstractPlayerSettings implements IContextSettings {
      * Save setting.
      */
     protected void save(String nodeName, Object value) {
+        _flags = SettingsFlags.of(this);
+
         _dataNode.set(nodeName, value);
         _dataNode.save();
     }
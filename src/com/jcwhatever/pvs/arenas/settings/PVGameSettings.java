@@ -40,6 +40,7 @@ public class PVGameSettings extends AbstractPlayerSettings implements IGameSetti
     private boolean _postGameCleanup = true;
     private LivesBehavior _livesBehavior = LivesBehavior.ADDITIVE;
     private PointsBehavior _pointsBehavior = PointsBehavior.STATIC;
+    private int _teleportBudget = 0;
 
     /*
      * Constructor.
@@ -53,6 +54,7 @@ public class PVGameSettings extends AbstractPlayerSettings implements IGameSetti
         _postGameCleanup = getDataNode().getBoolean("post-game-cleanup", _postGameCleanup);
         _livesBehavior = getDataNode().getEnum("lives-behavior", _livesBehavior, LivesBehavior.class);
         _pointsBehavior = getDataNode().getEnum("points-behavior", _pointsBehavior, PointsBehavior.class);
+        _teleportBudget = getDataNode().getInteger("teleport-budget-ms", _teleportBudget);
     }
 
     @Override
@@ -109,4 +111,24 @@ public class PVGameSettings extends AbstractPlayerSettings implements IGameSetti
     public void setEndDelayTicks(int delayTicks) {
         save("end-delay-ticks", _endDelayTicks = delayTicks);
     }
+
+    /**
+     * Get the max number of milliseconds per tick to spend teleporting players
+     * when the game starts or ends.
+     *
+     * <p>0 or less to teleport all players in the same tick.</p>
+     */
+    public int getTeleportBudget() {
+        return _teleportBudget;
+    }
+
+    /**
+     * Set the max number of milliseconds per tick to spend teleporting players
+     * when the game starts or ends.
+     *
+     * @param budgetMillis  The budget. 0 or less to teleport all players in the same tick.
+     */
+    public void setTeleportBudget(int budgetMillis) {
+        save("teleport-budget-ms", _teleportBudget = budgetMillis);
+    }
 }
@@ -25,7 +25,9 @@
 package com.jcwhatever.pvs.arenas.settings;
 
 import com.jcwhatever.pvs.api.arena.IArena;
+import com.jcwhatever.pvs.api.arena.IArenaPlayer;
 import com.jcwhatever.pvs.api.arena.settings.ILobbySettings;
+import com.jcwhatever.pvs.players.ArenaPlayer;
 
 /**
  *Lobby manager settings implementation.
@@ -55,6 +57,11 @@ public class PVLobbySettings extends AbstractPlayerSettings implements ILobbySet
         _isImmobilized = isEnabled;
 
         save("immobilized", isEnabled);
+
+        // refresh tracked immobilization of players already in the lobby
+        for (IArenaPlayer player : getArena().getLobby().getPlayers()) {
+            ((ArenaPlayer) player).updateImmobilized();
+        }
     }
 
     @Override
@@ -0,0 +1,129 @@
+/*
+ * This file is part of PV-Star for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.pvs.arenas.settings;
+
+import com.jcwhatever.pvs.api.arena.settings.IContextSettings;
+
+/**
+ * Immutable snapshot of the boolean flags of an {@link IContextSettings}
+ * packed into a single bitmask.
+ *
+ * <p>Event listeners that run on every damage, hunger, move or inventory event
+ * test a bit in the snapshot instead of resolving the context settings and
+ * invoking a getter. A new snapshot is compiled by {@link AbstractPlayerSettings}
+ * whenever one of its settings is changed.</p>
+ */
+public final class SettingsFlags {
+
+    public static final int PVP             = 1;
+    public static final int TEAM_PVP        = 1 << 1;
+    public static final int SHARING         = 1 << 2;
+    public static final int HUNGER          = 1 << 3;
+    public static final int AUTO_HEAL       = 1 << 4;
+    public static final int ARMOR_DAMAGE    = 1 << 5;
+    public static final int WEAPONS_DAMAGE  = 1 << 6;
+    public static final int TOOLS_DAMAGE    = 1 << 7;
+    public static final int FALL_DAMAGE     = 1 << 8;
+    public static final int SPAWNS_RESERVED = 1 << 9;
+
+    /**
+     * Compile a snapshot from the current values of the specified settings.
+     *
+     * @param settings  The settings to compile.
+     */
+    public static SettingsFlags of(IContextSettings settings) {
+
+        int flags = 0;
+
+        if (settings.isPvpEnabled())
+            flags |= PVP;
+
+        if (settings.isTeamPvpEnabled())
+            flags |= TEAM_PVP;
+
+        if (settings.isSharingEnabled())
+            flags |= SHARING;
+
+        if (settings.isHungerEnabled())
+            flags |= HUNGER;
+
+        if (settings.isAutoHealEnabled())
+            flags |= AUTO_HEAL;
+
+        if (settings.isArmorDamageable())
+            flags |= ARMOR_DAMAGE;
+
+        if (settings.isWeaponsDamageable())
+            flags |= WEAPONS_DAMAGE;
+
+        if (settings.isToolsDamageable())
+            flags |= TOOLS_DAMAGE;
+
+        if (settings.hasFallDamage())
+            flags |= FALL_DAMAGE;
+
+        if (settings.isPlayerSpawnsReserved())
+            flags |= SPAWNS_RESERVED;
+
+        return new SettingsFlags(flags);
+    }
+
+    private final int _flags;
+
+    private SettingsFlags(int flags) {
+        _flags = flags;
+    }
+
+    /**
+     * Determine if the specified flag is set.
+     *
+     * @param flag  The flag constant.
+     */
+    public boolean has(int flag) {
+        return (_flags & flag) == flag;
+    }
+
+    /**
+     * Get the raw bitmask.
+     */
+    public int getMask() {
+        return _flags;
+    }
+
+    @Override
+    public int hashCode() {
+        return _flags;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof SettingsFlags && ((SettingsFlags) obj)._flags == _flags;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{flags=" + Integer.toBinaryString(_flags) + '}';
+    }
+}
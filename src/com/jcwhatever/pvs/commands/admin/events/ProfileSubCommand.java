@@ -0,0 +1,86 @@
+/*
+ * This file is part of PV-Star for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.pvs.commands.admin.events;
+
+import com.jcwhatever.nucleus.managed.commands.CommandInfo;
+import com.jcwhatever.nucleus.managed.commands.arguments.ICommandArguments;
+import com.jcwhatever.nucleus.managed.commands.exceptions.CommandException;
+import com.jcwhatever.nucleus.managed.commands.mixins.IExecutableCommand;
+import com.jcwhatever.nucleus.managed.language.Localizable;
+import com.jcwhatever.pvs.Lang;
+import com.jcwhatever.pvs.PVEventManager;
+import com.jcwhatever.pvs.api.PVStarAPI;
+import com.jcwhatever.pvs.api.arena.IArena;
+import com.jcwhatever.pvs.api.commands.AbstractPVCommand;
+import org.bukkit.command.CommandSender;
+
+@CommandInfo(
+        parent="events",
+        command="profile",
+        staticParams={"on|off", "sampleInterval=10"},
+        description="Turn event dispatch profiling on or off. Turning it on clears previous results.",
+
+        paramDescriptions = {
+                "on|off= 'on' to start profiling, 'off' to stop.",
+                "sampleInterval= Optional. Time 1 out of every specified number of calls. Default is 10."})
+
+public class ProfileSubCommand extends AbstractPVCommand implements IExecutableCommand {
+
+    @Localizable static final String _INVALID_INTERVAL =
+            "The sample interval must be at least 1.";
+
+    @Localizable static final String _ON =
+            "Event profiling started. Timing 1 out of every {0: interval} event calls.";
+
+    @Localizable static final String _OFF =
+            "Event profiling stopped.";
+
+    @Override
+    public void execute(CommandSender sender, ICommandArguments args) throws CommandException {
+
+        boolean isOn = args.getBoolean("on|off");
+
+        if (!isOn) {
+            PVEventManager.setProfiling(0);
+            tellSuccess(sender, Lang.get(_OFF));
+            return;
+        }
+
+        int interval = args.getInteger("sampleInterval");
+        if (interval < 1)
+            throw new CommandException(Lang.get(_INVALID_INTERVAL));
+
+        ((PVEventManager) PVStarAPI.getEventManager()).resetProfiles();
+
+        for (IArena arena : PVStarAPI.getArenaManager().getArenas()) {
+            if (arena.getEventManager() instanceof PVEventManager)
+                ((PVEventManager) arena.getEventManager()).resetProfiles();
+        }
+
+        PVEventManager.setProfiling(interval);
+
+        tellSuccess(sender, Lang.get(_ON, interval));
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * This file is part of PV-Star for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.pvs.commands.admin.events;
+
+import com.jcwhatever.nucleus.managed.commands.CommandInfo;
+import com.jcwhatever.nucleus.managed.commands.arguments.ICommandArguments;
+import com.jcwhatever.nucleus.managed.commands.exceptions.CommandException;
+import com.jcwhatever.nucleus.managed.commands.mixins.IExecutableCommand;
+import com.jcwhatever.nucleus.managed.language.Localizable;
+import com.jcwhatever.nucleus.managed.messaging.ChatPaginator;
+import com.jcwhatever.nucleus.utils.text.TextUtils;
+import com.jcwhatever.nucleus.utils.text.TextUtils.FormatTemplate;
+import com.jcwhatever.pvs.EventProfile;
+import com.jcwhatever.pvs.Lang;
+import com.jcwhatever.pvs.PVEventManager;
+import com.jcwhatever.pvs.PVStar;
+import com.jcwhatever.pvs.api.PVStarAPI;
+import com.jcwhatever.pvs.api.arena.IArena;
+import com.jcwhatever.pvs.api.commands.AbstractPVCommand;
+import com.jcwhatever.pvs.listeners.ArenaEventForwarder;
+import org.bukkit.command.CommandSender;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+@CommandInfo(
+        parent="events",
+        command="top",
+        staticParams={"page=1"},
+        description="Show the arena event types with the most dispatch time.",
+
+        paramDescriptions = {
+                "page= {PAGE}"})
+
+public class TopSubCommand extends AbstractPVCommand implements IExecutableCommand {
+
+    @Localizable static final String _PAGINATOR_TITLE =
+            "Event Dispatch Profile";
+
+    @Localizable static final String _NO_RESULTS =
+            "No events have been profiled. Use '/pv events profile on' to start profiling.";
+
+    @Localizable static final String _LABEL_GLOBAL = "Global";
+
+    @Localizable static final String _FORWARDER =
+            "Bukkit events forwarded: {0: forwarded}, skipped without subscribers: {1: skipped}";
+
+    @Override
+    public void execute(CommandSender sender, ICommandArguments args) throws CommandException {
+
+        int page = args.getInteger("page");
+
+        List<ProfileRow> rows = new ArrayList<>(50);
+
+        String globalLabel = Lang.get(_LABEL_GLOBAL).toString();
+        addRows(rows, globalLabel, (PVEventManager) PVStarAPI.getEventManager());
+
+        for (IArena arena : PVStarAPI.getArenaManager().getArenas()) {
+            if (arena.getEventManager() instanceof PVEventManager)
+                addRows(rows, arena.getName(), (PVEventManager) arena.getEventManager());
+        }
+
+        if (rows.isEmpty())
+            throw new CommandException(Lang.get(_NO_RESULTS));
+
+        Collections.sort(rows, new Comparator<ProfileRow>() {
+            @Override
+            public int compare(ProfileRow o1, ProfileRow o2) {
+                return Long.compare(o2.totalNanos, o1.totalNanos);
+            }
+        });
+
+        ArenaEventForwarder forwarder = PVStar.getPlugin(PVStar.class).getEventForwarder();
+        if (forwarder != null)
+            tell(sender, Lang.get(_FORWARDER, forwarder.getTotalForwarded(), forwarder.getTotalSkipped()));
+
+        ChatPaginator pagin = createPagin(args, 7, Lang.get(_PAGINATOR_TITLE));
+
+        for (ProfileRow row : rows) {
+
+            EventProfile profile = row.profile;
+
+            pagin.addFormatted(FormatTemplate.RAW, TextUtils.format(
+                    "{YELLOW}{0}{GRAY} {1}: {WHITE}{2}{GRAY} calls, ~{WHITE}{3}ms{GRAY} total, " +
+                            "p99 {WHITE}{4}us{GRAY}, max {WHITE}{5}us",
+                    row.owner, profile.getEventClass().getSimpleName(), profile.getCalls(),
+                    row.totalNanos / 1000000, profile.getPercentileNanos(0.99D) / 1000,
+                    profile.getMaxNanos() / 1000));
+        }
+
+        pagin.show(sender, page, FormatTemplate.RAW);
+    }
+
+    private void addRows(List<ProfileRow> rows, String owner, PVEventManager manager) {
+
+        for (EventProfile profile : manager.getProfiles()) {
+            rows.add(new ProfileRow(owner, profile));
+        }
+    }
+
+    private static class ProfileRow {
+
+        final String owner;
+        final EventProfile profile;
+        final long totalNanos;
+
+        ProfileRow(String owner, EventProfile profile) {
+            this.owner = owner;
+            this.profile = profile;
+            this.totalNanos = profile.getEstimatedTotalNanos();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * This file is part of PV-Star for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.pvs.commands.admin.stats;
+
+import com.jcwhatever.nucleus.managed.commands.CommandInfo;
+import com.jcwhatever.nucleus.managed.commands.arguments.ICommandArguments;
+import com.jcwhatever.nucleus.managed.commands.exceptions.CommandException;
+import com.jcwhatever.nucleus.managed.commands.mixins.IExecutableCommand;
+import com.jcwhatever.nucleus.managed.language.Localizable;
+import com.jcwhatever.pvs.Lang;
+import com.jcwhatever.pvs.api.PVStarAPI;
+import com.jcwhatever.pvs.api.commands.AbstractPVCommand;
+import com.jcwhatever.pvs.stats.StatsManager;
+import com.jcwhatever.pvs.stats.StatsMigration;
+import com.jcwhatever.pvs.stats.StatsMigration.Direction;
+import org.bukkit.command.CommandSender;
+
+@CommandInfo(
+        parent="stats",
+        command="migrate",
+        staticParams={"sql|disk|resume", "batchSize=50", "intervalTicks=5"},
+        description="Copy the statistics of all arenas between disk and database storage " +
+                "in batches or resume an interrupted migration.",
+
+        paramDescriptions = {
+                "sql|disk|resume= 'sql' to copy disk statistics into the database, " +
+                        "'disk' to export database statistics to disk or 'resume' to " +
+                        "continue an interrupted migration.",
+                "batchSize= The number of players (to database) or rows (to disk) " +
+                        "copied per batch. Default is 50.",
+                "intervalTicks= The number of ticks between batches. Default is 5."})
+
+public class MigrateSubCommand extends AbstractPVCommand implements IExecutableCommand {
+
+    @Localizable static final String _INVALID_MODE =
+            "Invalid migration mode '{0: mode}'. Use 'sql', 'disk' or 'resume'.";
+
+    @Localizable static final String _INVALID_NUMBER =
+            "Batch size and interval ticks must be greater than 0.";
+
+    @Localizable static final String _CONNECTING =
+            "Connecting to the statistics database. Run the command again once connected.";
+
+    @Localizable static final String _FAILED =
+            "Failed to start migration: {0: error message}";
+
+    @Localizable static final String _NOTHING_TO_RESUME =
+            "There is no interrupted statistics migration to resume.";
+
+    @Localizable static final String _STARTED =
+            "Statistics migration ({0: direction}) of {1: number of arenas} arenas started. " +
+                    "Progress is reported in the console.";
+
+    @Override
+    public void execute(CommandSender sender, ICommandArguments args) throws CommandException {
+
+        String mode = args.getString("sql|disk|resume");
+        int batchSize = args.getInteger("batchSize");
+        int intervalTicks = args.getInteger("intervalTicks");
+
+        // a mistyped mode must not start an import that replaces database rows
+        if (!mode.equalsIgnoreCase("sql") && !mode.equalsIgnoreCase("disk") &&
+                !mode.equalsIgnoreCase("resume")) {
+            throw new CommandException(Lang.get(_INVALID_MODE, mode));
+        }
+
+        if (batchSize <= 0 || intervalTicks <= 0)
+            throw new CommandException(Lang.get(_INVALID_NUMBER));
+
+        StatsManager manager = (StatsManager)PVStarAPI.getStatsManager();
+
+        if (!manager.connectDatabase()) {
+            tell(sender, Lang.get(_CONNECTING));
+            return;
+        }
+
+        StatsMigration migration;
+
+        try {
+            if (mode.equalsIgnoreCase("resume")) {
+
+                migration = manager.resumeMigration(batchSize, intervalTicks);
+                if (migration == null)
+                    throw new CommandException(Lang.get(_NOTHING_TO_RESUME));
+            }
+            else {
+
+                Direction direction = mode.equalsIgnoreCase("disk")
+                        ? Direction.SQL_TO_DISK
+                        : Direction.DISK_TO_SQL;
+
+                migration = manager.migrate(direction, batchSize, intervalTicks);
+            }
+        }
+        catch (IllegalStateException e) {
+            throw new CommandException(Lang.get(_FAILED, e.getMessage()));
+        }
+
+        tellSuccess(sender, Lang.get(_STARTED, migration.getDirection(), migration.totalArenas()));
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * This file is part of PV-Star for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.pvs.commands.admin.stats;
+
+import com.jcwhatever.nucleus.managed.commands.CommandInfo;
+import com.jcwhatever.nucleus.managed.commands.arguments.ICommandArguments;
+import com.jcwhatever.nucleus.managed.commands.exceptions.CommandException;
+import com.jcwhatever.nucleus.managed.commands.mixins.IExecutableCommand;
+import com.jcwhatever.nucleus.managed.language.Localizable;
+import com.jcwhatever.pvs.Lang;
+import com.jcwhatever.pvs.api.PVStarAPI;
+import com.jcwhatever.pvs.api.commands.AbstractPVCommand;
+import com.jcwhatever.pvs.stats.StatsManager;
+import com.jcwhatever.pvs.stats.StatsMigration;
+import org.bukkit.command.CommandSender;
+
+@CommandInfo(
+        parent="stats",
+        command="pause",
+        description="Pause the running statistics migration. Use 'stats migrate resume' to continue.")
+
+public class PauseSubCommand extends AbstractPVCommand implements IExecutableCommand {
+
+    @Localizable static final String _NOT_RUNNING =
+            "A statistics migration is not running.";
+
+    @Localizable static final String _PAUSED =
+            "Statistics migration paused after {0: completed arenas} of {1: total arenas} arenas.";
+
+    @Override
+    public void execute(CommandSender sender, ICommandArguments args) throws CommandException {
+
+        StatsMigration migration = ((StatsManager)PVStarAPI.getStatsManager()).getMigration();
+        if (migration == null || !migration.isRunning())
+            throw new CommandException(Lang.get(_NOT_RUNNING));
+
+        migration.cancel();
+
+        tellSuccess(sender, Lang.get(_PAUSED, migration.getCompletedArenas(), migration.totalArenas()));
+    }
+}
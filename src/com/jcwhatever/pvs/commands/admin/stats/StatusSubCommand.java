@@ -0,0 +1,75 @@
+/*
+ * This file is part of PV-Star for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.pvs.commands.admin.stats;
+
+import com.jcwhatever.nucleus.managed.commands.CommandInfo;
+import com.jcwhatever.nucleus.managed.commands.arguments.ICommandArguments;
+import com.jcwhatever.nucleus.managed.commands.exceptions.CommandException;
+import com.jcwhatever.nucleus.managed.commands.mixins.IExecutableCommand;
+import com.jcwhatever.nucleus.managed.language.Localizable;
+import com.jcwhatever.nucleus.utils.text.components.IChatMessage;
+import com.jcwhatever.pvs.Lang;
+import com.jcwhatever.pvs.api.PVStarAPI;
+import com.jcwhatever.pvs.api.commands.AbstractPVCommand;
+import com.jcwhatever.pvs.stats.StatsManager;
+import com.jcwhatever.pvs.stats.StatsMigration;
+import org.bukkit.command.CommandSender;
+
+@CommandInfo(
+        parent="stats",
+        command="status",
+        description="View the progress of the current or most recent statistics migration.")
+
+public class StatusSubCommand extends AbstractPVCommand implements IExecutableCommand {
+
+    @Localizable static final String _NO_MIGRATION =
+            "No statistics migration has been started.";
+
+    @Localizable static final String _STATUS =
+            "Statistics migration ({0: direction}) is {1: running, paused or complete}. " +
+                    "{2: completed arenas} of {3: total arenas} arenas complete, " +
+                    "{4: entries} entries migrated.";
+
+    @Localizable static final String _RUNNING = "running";
+    @Localizable static final String _PAUSED = "paused";
+    @Localizable static final String _COMPLETE = "complete";
+
+    @Override
+    public void execute(CommandSender sender, ICommandArguments args) throws CommandException {
+
+        StatsMigration migration = ((StatsManager)PVStarAPI.getStatsManager()).getMigration();
+        if (migration == null)
+            throw new CommandException(Lang.get(_NO_MIGRATION));
+
+        IChatMessage state = migration.isComplete()
+                ? Lang.get(_COMPLETE)
+                : migration.isRunning()
+                    ? Lang.get(_RUNNING)
+                    : Lang.get(_PAUSED);
+
+        tell(sender, Lang.get(_STATUS, migration.getDirection(), state,
+                migration.getCompletedArenas(), migration.totalArenas(), migration.getTotalMigrated()));
+    }
+}
@@ -29,8 +29,11 @@ import com.jcwhatever.nucleus.managed.commands.arguments.ICommandArguments;
 import com.jcwhatever.nucleus.managed.commands.exceptions.CommandException;
 import com.jcwhatever.nucleus.managed.commands.mixins.IExecutableCommand;
 import com.jcwhatever.nucleus.managed.language.Localizable;
+import com.jcwhatever.pvs.ArenaManager;
+import com.jcwhatever.pvs.ArenaQueue;
 import com.jcwhatever.pvs.players.ArenaPlayer;
 import com.jcwhatever.pvs.Lang;
+import com.jcwhatever.pvs.api.PVStarAPI;
 import com.jcwhatever.pvs.api.arena.IArena;
 import com.jcwhatever.pvs.api.arena.IArenaPlayer;
 import com.jcwhatever.pvs.api.commands.AbstractPVCommand;
@@ -52,6 +55,9 @@ public class LeaveCommand extends AbstractPVCommand implements IExecutableComman
     @Localizable static final String _SUCCESS =
             "Thanks for playing!";
 
+    @Localizable static final String _LEFT_QUEUE =
+            "You left the arena queue.";
+
     @Override
     public void execute(CommandSender sender, ICommandArguments args) throws CommandException {
 
@@ -62,8 +68,16 @@ public class LeaveCommand extends AbstractPVCommand implements IExecutableComman
         assert player != null;
 
         IArena arena = player.getArena();
-        if (arena == null)
+        if (arena == null) {
+
+            ArenaQueue queue = ((ArenaManager) PVStarAPI.getArenaManager()).getQueue();
+            if (queue.dequeue(player)) {
+                tellSuccess(p, Lang.get(_LEFT_QUEUE));
+                return;
+            }
+
             throw new CommandException(Lang.get(_NOT_IN_ARENA));
+        }
 
         if (player.leaveArena())
             tellSuccess(p, Lang.get(_SUCCESS));
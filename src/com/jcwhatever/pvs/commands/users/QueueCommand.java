@@ -0,0 +1,87 @@
+/*
+ * This file is part of PV-Star for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.pvs.commands.users;
+
+import com.jcwhatever.nucleus.managed.commands.CommandInfo;
+import com.jcwhatever.nucleus.managed.commands.arguments.ICommandArguments;
+import com.jcwhatever.nucleus.managed.commands.exceptions.CommandException;
+import com.jcwhatever.nucleus.managed.commands.mixins.IExecutableCommand;
+import com.jcwhatever.nucleus.managed.language.Localizable;
+import com.jcwhatever.pvs.ArenaManager;
+import com.jcwhatever.pvs.ArenaQueue;
+import com.jcwhatever.pvs.Lang;
+import com.jcwhatever.pvs.api.PVStarAPI;
+import com.jcwhatever.pvs.api.arena.IArenaPlayer;
+import com.jcwhatever.pvs.api.commands.AbstractPVCommand;
+import com.jcwhatever.pvs.players.ArenaPlayer;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.permissions.PermissionDefault;
+
+@CommandInfo(
+        command={"queue", "q"},
+        staticParams={"arenaType"},
+        description="Wait in queue for the next available arena of a type.",
+        permissionDefault= PermissionDefault.TRUE,
+
+        paramDescriptions = {
+                "arenaType= The type of arena to queue for."})
+
+public class QueueCommand extends AbstractPVCommand implements IExecutableCommand {
+
+    @Localizable static final String _IN_ARENA =
+            "You must leave the current arena before you can queue for another.";
+
+    @Localizable static final String _NO_ARENAS =
+            "There are no arenas of type '{0: arena type}'.";
+
+    @Localizable static final String _SUCCESS =
+            "Waiting for an available '{0: arena type}' arena. {1: queue size} player(s) in queue.";
+
+    @Override
+    public void execute(CommandSender sender, ICommandArguments args) throws CommandException {
+
+        CommandException.checkNotConsole(getPlugin(), this, sender);
+
+        Player p = (Player)sender;
+        IArenaPlayer player = ArenaPlayer.get(p);
+        assert player != null;
+
+        String arenaType = args.getString("arenaType");
+
+        if (player.getArena() != null)
+            throw new CommandException(Lang.get(_IN_ARENA));
+
+        ArenaQueue queue = ((ArenaManager) PVStarAPI.getArenaManager()).getQueue();
+
+        if (!queue.enqueue(player, arenaType))
+            throw new CommandException(Lang.get(_NO_ARENAS, arenaType));
+
+        // player may have been placed immediately
+        if (queue.isQueued(player))
+            tellSuccess(p, Lang.get(_SUCCESS, arenaType, queue.size()));
+    }
+}
@@ -27,6 +27,7 @@ package com.jcwhatever.pvs.listeners;
 import com.jcwhatever.nucleus.events.manager.BukkitEventForwarder;
 import com.jcwhatever.nucleus.providers.npc.INpc;
 import com.jcwhatever.nucleus.providers.npc.Npcs;
+import com.jcwhatever.pvs.PVEventManager;
 import com.jcwhatever.pvs.api.PVStarAPI;
 import com.jcwhatever.pvs.api.arena.IArena;
 import com.jcwhatever.pvs.api.arena.IArenaPlayer;
@@ -50,6 +51,8 @@ import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.vehicle.VehicleEvent;
 import org.bukkit.inventory.InventoryHolder;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Forward Bukkit events to the appropriate arena.
  */
@@ -57,6 +60,9 @@ public class ArenaEventForwarder extends BukkitEventForwarder {
 
     private static final Location LOCATION = new Location(null, 0, 0, 0);
 
+    private final AtomicLong _forwarded = new AtomicLong();
+    private final AtomicLong _skipped = new AtomicLong();
+
     /**
      * Constructor.
      */
@@ -64,6 +70,21 @@ public class ArenaEventForwarder extends BukkitEventForwarder {
         super(PVStarAPI.getPlugin(), EventPriority.HIGHEST);
     }
 
+    /**
+     * Get the number of events forwarded to an arena.
+     */
+    public long getTotalForwarded() {
+        return _forwarded.get();
+    }
+
+    /**
+     * Get the number of events that were not forwarded because
+     * nothing was subscribed to them.
+     */
+    public long getTotalSkipped() {
+        return _skipped.get();
+    }
+
     @Override
     protected void onEvent(Event event) {
         // do nothing
@@ -71,12 +92,19 @@ public class ArenaEventForwarder extends BukkitEventForwarder {
 
     @Override
     protected void onBlockEvent(BlockEvent event) {
+
+        if (isUnsubscribed(event))
+            return;
+
         callEvent(event.getBlock(), event);
     }
 
     @Override
     protected void onPlayerEvent(PlayerEvent event) {
 
+        if (isUnsubscribed(event))
+            return;
+
         if (event instanceof PlayerInteractEvent) {
             PlayerInteractEvent interactEvent = (PlayerInteractEvent) event;
 
@@ -93,6 +121,10 @@ public class ArenaEventForwarder extends BukkitEventForwarder {
 
     @Override
     protected void onInventoryEvent(InventoryEvent event) {
+
+        if (isUnsubscribed(event))
+            return;
+
         if (event instanceof EnchantItemEvent) {
             callEvent(((EnchantItemEvent) event).getEnchanter(), event);
         }
@@ -116,11 +148,19 @@ public class ArenaEventForwarder extends BukkitEventForwarder {
 
     @Override
     protected void onVehicleEvent(VehicleEvent event) {
+
+        if (isUnsubscribed(event))
+            return;
+
         callEvent(event.getVehicle(), event);
     }
 
     @Override
     protected void onEntityEvent(EntityEvent event) {
+
+        if (isUnsubscribed(event))
+            return;
+
         Entity entity = event.getEntity();
         if (entity != null) {
             callEvent(entity, event);
@@ -142,7 +182,7 @@ public class ArenaEventForwarder extends BukkitEventForwarder {
         if (player == null || player.getArena() == null)
             return;
 
-        player.getArena().getEventManager().call(this, event);
+        dispatch(player.getArena(), event);
     }
 
     private <T extends Event> void callEvent(Entity entity, T event) {
@@ -164,9 +204,37 @@ public class ArenaEventForwarder extends BukkitEventForwarder {
         if (arena == null)
             return;
 
+        dispatch(arena, event);
+    }
+
+    /*
+     * Call an event on an arena if the arena has subscribers for it.
+     */
+    private <T extends Event> void dispatch(IArena arena, T event) {
+
+        if (arena.getEventManager() instanceof PVEventManager &&
+                !((PVEventManager) arena.getEventManager()).hasSubscribers(event.getClass())) {
+            _skipped.incrementAndGet();
+            return;
+        }
+
+        _forwarded.incrementAndGet();
         arena.getEventManager().call(this, event);
     }
 
+    /*
+     * Determine if no PV-Star event manager is subscribed to an event,
+     * before looking up the arena it belongs to.
+     */
+    private boolean isUnsubscribed(Event event) {
+
+        if (PVEventManager.hasAnySubscribers(event.getClass()))
+            return false;
+
+        _skipped.incrementAndGet();
+        return true;
+    }
+
     private boolean isInvalidNpc(Entity entity) {
 
         if (Npcs.hasProvider() && Npcs.isNpc(entity)) {
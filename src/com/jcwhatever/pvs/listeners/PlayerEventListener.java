@@ -33,13 +33,13 @@ import com.jcwhatever.pvs.api.PVStarAPI;
 import com.jcwhatever.pvs.api.arena.IArena;
 import com.jcwhatever.pvs.api.arena.IArenaPlayer;
 import com.jcwhatever.pvs.api.arena.options.PlayerLeaveArenaReason;
-import com.jcwhatever.pvs.api.arena.settings.IContextSettings;
 import com.jcwhatever.pvs.api.events.players.PlayerArenaRespawnEvent;
 import com.jcwhatever.pvs.api.events.players.PlayerArenaSpawnedEvent;
 import com.jcwhatever.pvs.api.events.players.PlayerCommandEvent;
 import com.jcwhatever.pvs.api.spawns.Spawnpoint;
 import com.jcwhatever.pvs.api.utils.Msg;
 import com.jcwhatever.pvs.arenas.AbstractArena;
+import com.jcwhatever.pvs.arenas.settings.SettingsFlags;
 import com.jcwhatever.pvs.players.ArenaPlayer;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
@@ -106,16 +106,16 @@ public class PlayerEventListener implements Listener {
     @EventHandler
     private void onPlayerQuit(PlayerQuitEvent event) {
 
-        ArenaPlayer player = ArenaPlayer.get(event.getPlayer());
+        ArenaPlayer player = ArenaPlayer.find(event.getPlayer().getUniqueId());
         if (player == null)
             return;
 
         AbstractArena arena = player.getArena();
-        if (arena == null)
-            return;
-
-        arena.remove(player, PlayerLeaveArenaReason.LOGOUT);
+        if (arena != null)
+            arena.remove(player, PlayerLeaveArenaReason.LOGOUT);
 
+        // dispose even if the player is not in an arena so the
+        // player registry does not keep offline players.
         ArenaPlayer.dispose(player);
     }
 
@@ -206,21 +206,16 @@ public class PlayerEventListener implements Listener {
             return;
 
         Player p = (Player)event.getEntity();
-        IArenaPlayer player = ArenaPlayer.get(p);
+        ArenaPlayer player = ArenaPlayer.get(p);
         if (player == null)
             return;
 
-        IArena arena = player.getArena();
-        if (arena == null)
-            return;
-
-        // get settings
-        IContextSettings settings = player.getContextSettings();
-        if (settings == null)
+        SettingsFlags flags = player.getSettingsFlags();
+        if (flags == null)
             return;
 
         // prevent hunger
-        if (!settings.isHungerEnabled()) {
+        if (!flags.has(SettingsFlags.HUNGER)) {
             event.setFoodLevel(20);
             event.setCancelled(true);
         }
@@ -237,21 +232,16 @@ public class PlayerEventListener implements Listener {
             return;
 
         Player p = (Player)event.getEntity();
-        IArenaPlayer player = ArenaPlayer.get(p);
+        ArenaPlayer player = ArenaPlayer.get(p);
         if (player == null)
             return;
 
-        IArena arena = player.getArena();
-        if (arena == null)
-            return;
-
-        // get settings
-        IContextSettings settings = player.getContextSettings();
-        if (settings == null)
+        SettingsFlags flags = player.getSettingsFlags();
+        if (flags == null)
             return;
 
         // prevent auto heal
-        if (!settings.isAutoHealEnabled()) {
+        if (!flags.has(SettingsFlags.AUTO_HEAL)) {
             event.setCancelled(true);
         }
     }
@@ -267,19 +257,15 @@ public class PlayerEventListener implements Listener {
         if (!(event.getEntity() instanceof Player))
             return;
 
-        IArenaPlayer player = ArenaPlayer.get((Player) event.getEntity());
+        ArenaPlayer player = ArenaPlayer.get((Player) event.getEntity());
         if (player == null)
             return;
 
-        IArena arena = player.getArena();
-        if (arena == null)
+        SettingsFlags flags = player.getSettingsFlags();
+        if (flags == null)
             return;
 
-        IContextSettings settings = player.getContextSettings();
-        if (settings == null)
-            return;
-
-        if (!settings.hasFallDamage()) {
+        if (!flags.has(SettingsFlags.FALL_DAMAGE)) {
             event.setDamage(0.0D);
             event.setCancelled(true);
         }
@@ -291,25 +277,33 @@ public class PlayerEventListener implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST)
     private void onPlayerMove(PlayerMoveEvent event) {
 
-        ArenaPlayer player = ArenaPlayer.get(event.getPlayer());
-        if (player == null)
+        Player p = event.getPlayer();
+
+        // only immobilized players are tracked
+        if (!ArenaPlayer.isImmobilized(p))
             return;
 
-        IArena arena = player.getArena();
-        if (arena == null)
+        Location fr = event.getFrom();
+        Location moveTo = event.getTo();
+
+        // head rotation and vertical movement are allowed
+        if (fr.getX() == moveTo.getX() && fr.getZ() == moveTo.getZ() &&
+                fr.getWorld() == moveTo.getWorld()) {
+            return;
+        }
+
+        ArenaPlayer player = ArenaPlayer.get(p);
+        if (player == null)
             return;
 
         // player immobilization
-        if (player.isImmobilized()) {
-            Location fr = event.getFrom();
-            Location to = player.IMMOBILIZE_LOCATION;
-            to.setWorld(fr.getWorld());
-            to.setX(fr.getX());
-            to.setY(event.getTo().getY());
-            to.setZ(fr.getZ());
-            to.setYaw(event.getTo().getYaw());
-            to.setPitch(event.getTo().getPitch());
-            event.setTo(to);
-        }
+        Location to = player.IMMOBILIZE_LOCATION;
+        to.setWorld(fr.getWorld());
+        to.setX(fr.getX());
+        to.setY(moveTo.getY());
+        to.setZ(fr.getZ());
+        to.setYaw(moveTo.getYaw());
+        to.setPitch(moveTo.getPitch());
+        event.setTo(to);
     }
 }
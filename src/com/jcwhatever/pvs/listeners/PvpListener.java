@@ -25,11 +25,11 @@
 package com.jcwhatever.pvs.listeners;
 
 import com.jcwhatever.nucleus.utils.entity.EntityUtils;
+import com.jcwhatever.pvs.arenas.settings.SettingsFlags;
 import com.jcwhatever.pvs.players.ArenaPlayer;
 import com.jcwhatever.pvs.api.arena.IArena;
 import com.jcwhatever.pvs.api.arena.IArenaPlayer;
 import com.jcwhatever.pvs.api.arena.ArenaTeam;
-import com.jcwhatever.pvs.api.arena.settings.IContextSettings;
 import com.jcwhatever.nucleus.utils.items.ItemStackUtils;
 import com.jcwhatever.nucleus.utils.materials.Materials;
 
@@ -57,19 +57,15 @@ public class PvpListener implements Listener {
         if (!event.hasBlock())
             return;
 
-        IArenaPlayer arenaPlayer = ArenaPlayer.get(event.getPlayer());
+        ArenaPlayer arenaPlayer = ArenaPlayer.get(event.getPlayer());
         if (arenaPlayer == null)
             return;
 
-        IArena arena = arenaPlayer.getArena();
-        if (arena == null)
-            return;
-
-        IContextSettings settings = arenaPlayer.getContextSettings();
-        if (settings == null)
+        SettingsFlags flags = arenaPlayer.getSettingsFlags();
+        if (flags == null)
             return;
 
-        if (settings.isToolsDamageable())
+        if (flags.has(SettingsFlags.TOOLS_DAMAGE))
             return;
 
         ItemStack inHand = event.getPlayer().getItemInHand();
@@ -95,19 +91,15 @@ public class PvpListener implements Listener {
 
         Player player = (Player)damager;
 
-        IArenaPlayer arenaPlayer = ArenaPlayer.get(player);
+        ArenaPlayer arenaPlayer = ArenaPlayer.get(player);
         if (arenaPlayer == null)
             return;
 
-        IArena arena = arenaPlayer.getArena();
-        if (arena == null)
-            return;
-
-        IContextSettings settings = arenaPlayer.getContextSettings();
-        if (settings == null)
+        SettingsFlags flags = arenaPlayer.getSettingsFlags();
+        if (flags == null)
             return;
 
-        if (settings.isWeaponsDamageable())
+        if (flags.has(SettingsFlags.WEAPONS_DAMAGE))
             return;
 
         ItemStack inHand = player.getItemInHand();
@@ -130,21 +122,16 @@ public class PvpListener implements Listener {
 
         Player p = (Player)entity;
 
-        IArenaPlayer player = ArenaPlayer.get(p);
+        ArenaPlayer player = ArenaPlayer.get(p);
         if (player == null)
             return;
 
-        IArena arena = player.getArena();
-        if (arena == null)
-            return;
-
-        // get settings
-        IContextSettings settings = player.getContextSettings();
-        if (settings == null)
+        SettingsFlags flags = player.getSettingsFlags();
+        if (flags == null)
             return;
 
         // prevent armor damage
-        if (!settings.isArmorDamageable()) {
+        if (!flags.has(SettingsFlags.ARMOR_DAMAGE)) {
             ItemStackUtils.repair(p.getInventory().getArmorContents());
         }
     }
@@ -180,12 +167,12 @@ public class PvpListener implements Listener {
 
 
         // get settings
-        IContextSettings settings = player.getContextSettings();
-        if (settings == null)
+        SettingsFlags flags = player.getSettingsFlags();
+        if (flags == null)
             return;
 
         // prevent pvp
-        if (!settings.isPvpEnabled() || !settings.isTeamPvpEnabled()) {
+        if (!flags.has(SettingsFlags.PVP) || !flags.has(SettingsFlags.TEAM_PVP)) {
 
             Entity damagerEntity = event.getDamager();
             Player damager = null;
@@ -205,13 +192,13 @@ public class PvpListener implements Listener {
             if (damager != null) {
 
                 // check for pvp
-                if (!settings.isPvpEnabled()) {
+                if (!flags.has(SettingsFlags.PVP)) {
                     event.setDamage(0.0);
                     event.setCancelled(true);
                 }
                 // check for team pvp
                 else //noinspection ConstantConditions
-                    if (!settings.isTeamPvpEnabled()) {  // always true, statement is for readability
+                    if (!flags.has(SettingsFlags.TEAM_PVP)) {  // always true, statement is for readability
                         IArenaPlayer damagerPlayer = ArenaPlayer.get(p);
                         if (damagerPlayer != null) {
 
@@ -24,11 +24,9 @@
 
 package com.jcwhatever.pvs.listeners;
 
+import com.jcwhatever.pvs.arenas.settings.SettingsFlags;
 import com.jcwhatever.pvs.players.ArenaPlayer;
 import com.jcwhatever.pvs.api.PVStarAPI;
-import com.jcwhatever.pvs.api.arena.IArena;
-import com.jcwhatever.pvs.api.arena.IArenaPlayer;
-import com.jcwhatever.pvs.api.arena.settings.IContextSettings;
 
 import org.bukkit.Bukkit;
 import org.bukkit.block.Chest;
@@ -58,20 +56,15 @@ public class SharingListener implements Listener {
             return;
 
         final Player p = (Player)humanEntity;
-        IArenaPlayer player = ArenaPlayer.get(p);
+        ArenaPlayer player = ArenaPlayer.get(p);
         if (player == null)
             return;
 
-        IArena arena = player.getArena();
-
-        if (arena == null)
-            return;
-
-        IContextSettings settings = player.getContextSettings();
-        if (settings == null)
+        SettingsFlags flags = player.getSettingsFlags();
+        if (flags == null)
             return;
 
-        if (settings.isSharingEnabled())
+        if (flags.has(SettingsFlags.SHARING))
             return;
 
         // prevent sharing
@@ -109,19 +102,15 @@ public class SharingListener implements Listener {
     @EventHandler(priority=EventPriority.HIGHEST)
     private void onPlayerDropItem(PlayerDropItemEvent event) {
 
-        IArenaPlayer player = ArenaPlayer.get(event.getPlayer());
+        ArenaPlayer player = ArenaPlayer.get(event.getPlayer());
         if (player == null)
             return;
 
-        IArena arena = player.getArena();
-        if (arena == null)
-            return;
-
-        IContextSettings settings = player.getContextSettings();
-        if (settings == null)
+        SettingsFlags flags = player.getSettingsFlags();
+        if (flags == null)
             return;
 
-        if (settings.isSharingEnabled())
+        if (flags.has(SettingsFlags.SHARING))
             return;
 
         event.setCancelled(true);
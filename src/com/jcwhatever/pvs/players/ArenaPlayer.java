@@ -27,6 +27,7 @@ package com.jcwhatever.pvs.players;
 import com.jcwhatever.nucleus.Nucleus;
 import com.jcwhatever.nucleus.events.respacks.MissingRequiredResourcePackEvent;
 import com.jcwhatever.nucleus.events.respacks.MissingRequiredResourcePackEvent.Action;
+import com.jcwhatever.nucleus.managed.scheduler.IScheduledTask;
 import com.jcwhatever.nucleus.managed.scheduler.Scheduler;
 import com.jcwhatever.nucleus.managed.teleport.TeleportMode;
 import com.jcwhatever.nucleus.managed.teleport.Teleporter;
@@ -67,6 +68,8 @@ import com.jcwhatever.pvs.api.utils.Msg;
 import com.jcwhatever.pvs.arenas.AbstractArena;
 import com.jcwhatever.pvs.arenas.context.AbstractContextManager;
 import com.jcwhatever.pvs.arenas.managers.SpawnManager;
+import com.jcwhatever.pvs.arenas.settings.AbstractPlayerSettings;
+import com.jcwhatever.pvs.arenas.settings.SettingsFlags;
 import com.jcwhatever.pvs.stats.SessionStatTracker;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
@@ -77,26 +80,38 @@ import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
 
 import javax.annotation.Nullable;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.UUID;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * PVStar implementation of {@link IArenaPlayer}.
  */
 public abstract class ArenaPlayer implements IArenaPlayer {
 
-    private static final Map<UUID, ArenaPlayer> PLAYER_MAP = new HashMap<>(100);
-    private static final Map<UUID, MetaStore> META = new HashMap<UUID, MetaStore>(100);
+    // entries are removed when the player logs out or the npc is disposed
+    private static final ConcurrentMap<UUID, ArenaPlayer> PLAYER_MAP =
+            new ConcurrentHashMap<>(100, 0.75f, 2);
+    private static final AtomicInteger NPC_COUNT = new AtomicInteger();
+    private static final int NPC_SWEEP_INTERVAL = 20 * 60;
     private static BukkitPlayerListener LISTENER;
-    private static DeathChecker DEATH_CHECKER;
+    private static DeathTimeouts DEATH_TIMEOUTS;
+
+    // entities of players that are currently immobilized, checked on every move event
+    private static final Set<Entity> IMMOBILIZED =
+            Collections.newSetFromMap(new IdentityHashMap<Entity, Boolean>(10));
 
     /*
      * Get a singleton wrapper instance.
@@ -120,10 +135,8 @@ public abstract class ArenaPlayer implements IArenaPlayer {
         }
 
         ArenaPlayer arenaPlayer = PLAYER_MAP.get(player.getUniqueId());
-        if (arenaPlayer == null) {
-            arenaPlayer = new BukkitPlayer(player);
-            PLAYER_MAP.put(player.getUniqueId(), arenaPlayer);
-        }
+        if (arenaPlayer == null)
+            arenaPlayer = register(player.getUniqueId(), new BukkitPlayer(player));
 
         init();
         return arenaPlayer;
@@ -137,14 +150,17 @@ public abstract class ArenaPlayer implements IArenaPlayer {
 
         if (npc.isDisposed()) {
             Msg.debug("Cannot use disposed npc.");
+
+            ArenaPlayer disposed = PLAYER_MAP.get(npc.getId());
+            if (disposed != null)
+                dispose(disposed);
+
             return null;
         }
 
         ArenaPlayer arenaPlayer = PLAYER_MAP.get(npc.getId());
-        if (arenaPlayer == null) {
-            arenaPlayer = new NpcPlayer(npc);
-            PLAYER_MAP.put(npc.getId(), arenaPlayer);
-        }
+        if (arenaPlayer == null)
+            arenaPlayer = register(npc.getId(), new NpcPlayer(npc));
 
         init();
 
@@ -155,7 +171,71 @@ public abstract class ArenaPlayer implements IArenaPlayer {
      * Dispose the singleton instance of an arena player.
      */
     public static void dispose(IArenaPlayer player) {
-        PLAYER_MAP.remove(player.getUniqueId());
+        ArenaPlayer removed = PLAYER_MAP.remove(player.getUniqueId());
+
+        if (removed instanceof NpcPlayer)
+            NPC_COUNT.decrementAndGet();
+
+        if (removed != null)
+            removed.untrackImmobilized();
+    }
+
+    /**
+     * Determine if the specified player entity is immobilized.
+     *
+     * <p>Only checks an identity set of immobilized players so it can be
+     * used to short circuit high frequency events such as movement.</p>
+     *
+     * @param player  The player entity.
+     */
+    public static boolean isImmobilized(Player player) {
+        return !IMMOBILIZED.isEmpty() && IMMOBILIZED.contains(player);
+    }
+
+    /**
+     * Get the wrapper instance of a player or npc without creating one.
+     *
+     * <p>Safe to call from any thread.</p>
+     *
+     * @param playerId  The id of the player or npc.
+     *
+     * @return  The wrapper or null if there is none.
+     */
+    @Nullable
+    public static ArenaPlayer find(UUID playerId) {
+        PreCon.notNull(playerId);
+
+        return PLAYER_MAP.get(playerId);
+    }
+
+    /**
+     * Get the number of player and npc wrappers currently registered.
+     */
+    public static int totalRegistered() {
+        return PLAYER_MAP.size();
+    }
+
+    /**
+     * Get the number of npc wrappers currently registered.
+     */
+    public static int totalNpcs() {
+        return NPC_COUNT.get();
+    }
+
+    /*
+     * Add a new wrapper instance to the registry. If another thread added one
+     * first, that instance is returned instead.
+     */
+    private static ArenaPlayer register(UUID id, ArenaPlayer player) {
+
+        ArenaPlayer current = PLAYER_MAP.putIfAbsent(id, player);
+        if (current != null)
+            return current;
+
+        if (player instanceof NpcPlayer)
+            NPC_COUNT.incrementAndGet();
+
+        return player;
     }
 
     private static void init() {
@@ -164,9 +244,22 @@ public abstract class ArenaPlayer implements IArenaPlayer {
             Bukkit.getPluginManager().registerEvents(LISTENER, PVStarAPI.getPlugin());
         }
 
-        if (DEATH_CHECKER == null) {
-            DEATH_CHECKER = new DeathChecker();
-            Scheduler.runTaskRepeat(PVStarAPI.getPlugin(), 1, 1, DEATH_CHECKER);
+        if (DEATH_TIMEOUTS == null) {
+            DEATH_TIMEOUTS = new DeathTimeouts();
+
+            // remove wrappers of npcs that were disposed without being looked up again
+            Scheduler.runTaskRepeat(PVStarAPI.getPlugin(), NPC_SWEEP_INTERVAL, NPC_SWEEP_INTERVAL,
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            for (ArenaPlayer player : PLAYER_MAP.values()) {
+                                if (player instanceof NpcPlayer
+                                        && ((NpcPlayer) player).getNpc().isDisposed()) {
+                                    dispose(player);
+                                }
+                            }
+                        }
+                    });
         }
     }
 
@@ -176,15 +269,23 @@ public abstract class ArenaPlayer implements IArenaPlayer {
 
     private boolean _isReady;
     private boolean _isImmobilized;
+    private Entity _immobilizedEntity;
     private boolean _isInvulnerable;
     private AbstractArena _arena;
+
+    // context manager the player is in, updated by the context managers
+    private AbstractContextManager _contextManager;
+    private AbstractPlayerSettings _settings;
+    private ArenaContext _context = ArenaContext.NONE;
     private ArenaTeam _team = ArenaTeam.NONE;
     private IArenaPlayerGroup _playerGroup;
     private int _lives = 0;
     private int _totalPoints = 0;
     private int _points;
     private Date _lastJoin;
-    private long _deathTick = -1;
+    private DeathTimeout _deathTimeout;
+    // meta stores keyed to arena id, allocated on first use
+    private Map<UUID, MetaStore> _arenaMeta;
     // player to blame code induced death on
     protected IArenaPlayer _deathBlamePlayer;
     // Meta data object to store extra meta. Disposed when the player starts a new game.
@@ -262,15 +363,47 @@ public abstract class ArenaPlayer implements IArenaPlayer {
         }
     }
 
+    /**
+     * Set the context manager the player is in.
+     *
+     * <p>Invoked by {@link AbstractContextManager} when the player is added to
+     * or removed from a context.</p>
+     *
+     * @param manager  The context manager or null if the player is not in a context.
+     */
+    public void setContextManager(@Nullable AbstractContextManager manager) {
+        _contextManager = manager;
+        _context = manager != null ? manager.getContext() : ArenaContext.NONE;
+
+        updateImmobilized();
+
+        IContextSettings settings = manager != null ? manager.getSettings() : null;
+        _settings = settings instanceof AbstractPlayerSettings
+                ? (AbstractPlayerSettings)settings
+                : null;
+    }
+
     /**
      * Declare the player as no longer in an arena.
      */
     public void clearArena() {
 
+        // discard meta for the arena the player is leaving
+        if (_arena != null && _arenaMeta != null) {
+            _arenaMeta.remove(_arena.getId());
+
+            if (_arenaMeta.isEmpty())
+                _arenaMeta = null;
+        }
+
         _arena = null;
-        META.clear();
+        _contextManager = null;
+        _settings = null;
+        _context = ArenaContext.NONE;
+        DEATH_TIMEOUTS.cancel(this);
         _isReady = false;
         _isImmobilized = false;
+        untrackImmobilized();
         _isInvulnerable = false;
         _sessionMeta = new MetaStore();
         _lives = 0;
@@ -299,6 +432,9 @@ public abstract class ArenaPlayer implements IArenaPlayer {
         }
 
         _playerGroup = playerGroup;
+
+        if (_contextManager != null)
+            _contextManager.onPlayerGroupChanged(this);
     }
 
     /**
@@ -367,6 +503,9 @@ public abstract class ArenaPlayer implements IArenaPlayer {
 
         _isReady = isReady;
 
+        if (_contextManager != null)
+            _contextManager.onPlayerReadyChanged(this);
+
         if (_isReady) {
 
             PlayerReadyEvent event = new PlayerReadyEvent(_arena, this, _arena.getLobby(), null);
@@ -396,6 +535,34 @@ public abstract class ArenaPlayer implements IArenaPlayer {
     @Override
     public void setImmobilized(boolean isImmobilized) {
         _isImmobilized =  isImmobilized;
+
+        updateImmobilized();
+    }
+
+    /**
+     * Add or remove the player from the set of immobilized players
+     * to reflect the current result of {@link #isImmobilized}.
+     *
+     * <p>Invoked when the player's immobilized flag, context or the
+     * lobby immobilize setting changes.</p>
+     */
+    public void updateImmobilized() {
+
+        if (!isImmobilized()) {
+            untrackImmobilized();
+            return;
+        }
+
+        Entity entity = getEntity();
+
+        // npc entity may have changed since it was tracked
+        if (entity != _immobilizedEntity)
+            untrackImmobilized();
+
+        if (entity != null) {
+            IMMOBILIZED.add(entity);
+            _immobilizedEntity = entity;
+        }
     }
 
     @Override
@@ -480,61 +647,32 @@ public abstract class ArenaPlayer implements IArenaPlayer {
 
     @Override
     public ArenaContext getContext() {
-        if (_arena == null)
-            return ArenaContext.NONE;
-
-        if (_arena.getLobby().getPlayers().contains(this))
-            return ArenaContext.LOBBY;
-
-        if (_arena.getGame().getPlayers().contains(this))
-            return ArenaContext.GAME;
-
-        if (_arena.getSpectators().getPlayers().contains(this))
-            return ArenaContext.SPECTATOR;
-
-        return ArenaContext.NONE;
+        return _context;
     }
 
     @Override
     @Nullable
     public AbstractContextManager getContextManager() {
-        if (_arena == null)
-            return null;
-
-        switch (getContext()) {
-            case LOBBY:
-                return _arena.getLobby();
-
-            case SPECTATOR:
-                return _arena.getSpectators();
-
-            case GAME:
-                return _arena.getGame();
-
-            default:
-                return null;
-        }
+        return _contextManager;
     }
 
     @Override
     @Nullable
     public IContextSettings getContextSettings() {
-        if (_arena == null)
-            return null;
-
-        switch (getContext()) {
-            case LOBBY:
-                return _arena.getLobby().getSettings();
-
-            case SPECTATOR:
-                return _arena.getSpectators().getSettings();
-
-            case GAME:
-                return _arena.getGame().getSettings();
+        return _contextManager != null ? _contextManager.getSettings() : null;
+    }
 
-            default:
-                return null;
-        }
+    /**
+     * Get a snapshot of the boolean settings of the player's current context.
+     *
+     * <p>Intended for event listeners that test a single setting on every event.</p>
+     *
+     * @return  The snapshot or null if the player is not in a context.
+     */
+    @Nullable
+    public SettingsFlags getSettingsFlags() {
+        AbstractPlayerSettings settings = _settings;
+        return settings != null ? settings.getFlags() : null;
     }
 
     @Override
@@ -592,10 +730,13 @@ public abstract class ArenaPlayer implements IArenaPlayer {
     public MetaStore getMeta(UUID arenaId) {
         PreCon.notNull(arenaId);
 
-        MetaStore meta = META.get(arenaId);
+        if (_arenaMeta == null)
+            _arenaMeta = new HashMap<>(3);
+
+        MetaStore meta = _arenaMeta.get(arenaId);
         if (meta == null) {
             meta = new MetaStore();
-            META.put(arenaId, meta);
+            _arenaMeta.put(arenaId, meta);
         }
 
         return meta;
@@ -695,52 +836,93 @@ public abstract class ArenaPlayer implements IArenaPlayer {
         _lives = event.getNewLives();
     }
 
-    private static class DeathChecker implements Runnable {
+    /*
+     * Remove the player from the set of immobilized players.
+     */
+    private void untrackImmobilized() {
+        if (_immobilizedEntity == null)
+            return;
+
+        IMMOBILIZED.remove(_immobilizedEntity);
+        _immobilizedEntity = null;
+    }
 
-        final Map<ArenaPlayer, Void> dead = new WeakHashMap<>(10);
+    /*
+     * Kicks dead players who have not respawned within the max death ticks of
+     * their context. Timeouts are queued in deadline order when the player dies,
+     * so only expired timeouts are visited and the task only runs while there
+     * is at least one dead player waiting to respawn.
+     */
+    private static class DeathTimeouts implements Runnable {
+
+        final PriorityQueue<DeathTimeout> queue = new PriorityQueue<>(10);
+        IScheduledTask task;
         long tickCount = 0;
 
+        void schedule(ArenaPlayer player, int maxTicks) {
+
+            cancel(player);
+
+            DeathTimeout timeout = new DeathTimeout(player, tickCount + maxTicks + 1);
+            player._deathTimeout = timeout;
+            queue.add(timeout);
+
+            if (task == null)
+                task = Scheduler.runTaskRepeat(PVStarAPI.getPlugin(), 1, 1, this);
+        }
+
+        void cancel(ArenaPlayer player) {
+
+            DeathTimeout timeout = player._deathTimeout;
+            if (timeout == null)
+                return;
+
+            player._deathTimeout = null;
+            queue.remove(timeout);
+
+            if (queue.isEmpty())
+                stop();
+        }
+
         @Override
         public void run() {
 
             tickCount++;
 
-            Iterator<Entry<ArenaPlayer, Void>> iterator = dead.entrySet().iterator();
+            while (!queue.isEmpty() && queue.peek().deadline <= tickCount) {
 
-            while (iterator.hasNext()) {
+                ArenaPlayer player = queue.poll().player;
+                player._deathTimeout = null;
 
-                ArenaPlayer player = iterator.next().getKey();
-                if (player._deathTick < 0) {
-                    iterator.remove();
-                    continue;
-                }
+                if (player.isDead() && player.getContextManager() != null)
+                    player.kick();
+            }
 
-                if (!player.isDead()) {
-                    player._deathTick = -1;
-                    iterator.remove();
-                    continue;
-                }
+            if (queue.isEmpty())
+                stop();
+        }
 
-                IArena arena = player.getArena();
-                if (arena == null) {
-                    player._deathTick = -1;
-                    iterator.remove();
-                    continue;
-                }
+        private void stop() {
+            if (task != null) {
+                task.cancel();
+                task = null;
+            }
+        }
+    }
 
-                AbstractContextManager context = player.getContextManager();
-                if (context == null) {
-                    player._deathTick = -1;
-                    iterator.remove();
-                    continue;
-                }
+    private static class DeathTimeout implements Comparable<DeathTimeout> {
 
-                int maxTicks = context.getSettings().getMaxDeathTicks();
+        final ArenaPlayer player;
+        final long deadline;
 
-                if (tickCount - player._deathTick > maxTicks) {
-                    player.kick();
-                }
-            }
+        DeathTimeout(ArenaPlayer player, long deadline) {
+            this.player = player;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public int compareTo(DeathTimeout o) {
+            return Long.compare(deadline, o.deadline);
         }
     }
 
@@ -771,6 +953,20 @@ public abstract class ArenaPlayer implements IArenaPlayer {
             handleDeath(player, arena);
         }
 
+        /*
+         * Cancel the death timeout of respawned players.
+         */
+        @EventHandler(priority = EventPriority.MONITOR)
+        private void onPlayerRespawn(PlayerRespawnEvent event) {
+
+            // do not create wrappers for players that are not tracked
+            ArenaPlayer player = ArenaPlayer.find(event.getPlayer().getUniqueId());
+            if (player == null)
+                return;
+
+            DEATH_TIMEOUTS.cancel(player);
+        }
+
         @EventHandler(priority = EventPriority.MONITOR)
         private void onNpcDeath(NpcDeathEvent event) {
 
@@ -801,11 +997,10 @@ public abstract class ArenaPlayer implements IArenaPlayer {
                 });
             }
             else if (player instanceof IBukkitPlayer){
-                // add to death checker
+                // schedule kick if the player does not respawn in time
                 AbstractContextManager context = player.getContextManager();
                 if (context != null && context.getSettings().getMaxDeathTicks() > 0) {
-                    player._deathTick = DEATH_CHECKER.tickCount;
-                    DEATH_CHECKER.dead.put(player, null);
+                    DEATH_TIMEOUTS.schedule(player, context.getSettings().getMaxDeathTicks());
                 }
             }
             else if (player instanceof INpcPlayer){
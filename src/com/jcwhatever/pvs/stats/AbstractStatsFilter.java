@@ -42,6 +42,8 @@ public abstract class AbstractStatsFilter implements IStatsFilter {
 
     private final Set<UUID> _arenaIds = new HashSet<>(7);
     private final List<StatParam> _stats = new ArrayList<>(5);
+    private StatWindow _window = StatWindow.ALL_TIME;
+    private int _periodsAgo;
 
     @Override
     public void addArena(UUID arenaId) {
@@ -59,6 +61,50 @@ public abstract class AbstractStatsFilter implements IStatsFilter {
         _stats.add(new StatParam(type, trackType));
     }
 
+    /**
+     * Set the time window to filter scores by.
+     *
+     * <p>Defaults to {@link StatWindow#ALL_TIME}. If the statistics backend does
+     * not track windows, a filter with any other window has no results.</p>
+     *
+     * @param window  The time window. Scores of the current window bucket are used.
+     */
+    public void setWindow(StatWindow window) {
+        setWindow(window, 0);
+    }
+
+    /**
+     * Set the time window to filter scores by.
+     *
+     * @param window      The time window.
+     * @param periodsAgo  The number of window buckets before the current one,
+     *                    i.e. 1 for last week when the window is weekly. Must be
+     *                    less than {@link StatWindow#RETAINED_BUCKETS}.
+     */
+    public void setWindow(StatWindow window, int periodsAgo) {
+        PreCon.notNull(window);
+        PreCon.positiveNumber(periodsAgo);
+        PreCon.isValid(periodsAgo < StatWindow.RETAINED_BUCKETS,
+                "The window bucket is not retained.");
+
+        _window = window;
+        _periodsAgo = periodsAgo;
+    }
+
+    /**
+     * Get the time window to filter scores by.
+     */
+    public StatWindow getWindow() {
+        return _window;
+    }
+
+    /**
+     * Get the window bucket to filter scores by.
+     */
+    protected int getWindowBucket() {
+        return _window.getCurrentBucket() - _periodsAgo;
+    }
+
     /**
      * Get the IDs of arenas to include in the filter results.
      */
@@ -0,0 +1,47 @@
+/*
+ * This file is part of PV-Star for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.pvs.stats;
+
+import com.jcwhatever.pvs.api.stats.IPlayerStats;
+import com.jcwhatever.pvs.api.stats.StatTracking.StatTrackType;
+import com.jcwhatever.pvs.api.stats.StatType;
+
+/**
+ * Player statistics that also track scores within time windows.
+ */
+public interface IWindowedPlayerStats extends IPlayerStats {
+
+    /**
+     * Get a score within a window bucket.
+     *
+     * @param type       The statistic type.
+     * @param trackType  The statistic tracking type.
+     * @param window     The window. Not {@link StatWindow#ALL_TIME}.
+     * @param bucket     The bucket within the window.
+     *
+     * @return  The score or 0 if the bucket is no longer retained.
+     */
+    double getScore(StatType type, StatTrackType trackType, StatWindow window, int bucket);
+}
@@ -30,8 +30,11 @@ import com.jcwhatever.pvs.api.stats.IPlayerStats;
 import com.jcwhatever.pvs.api.stats.StatTracking;
 import com.jcwhatever.pvs.api.stats.StatType;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -40,7 +43,10 @@ import java.util.UUID;
 public class PlayerStats implements IPlayerStats {
 
     private final UUID _playerId;
-    private final Map<String, Stat> _stats = new HashMap<>(15);
+
+    // statistic records indexed by statistic ordinal
+    private Stat[] _stats = new Stat[0];
+    private int _totalStats;
 
     /**
      * Constructor.
@@ -61,7 +67,8 @@ public class PlayerStats implements IPlayerStats {
     @Override
     public double getScore(StatType type, StatTracking.StatTrackType trackingType) {
 
-        Stat stat = _stats.get(type.getName());
+        int ordinal = StatOrdinals.get(type);
+        Stat stat = ordinal < _stats.length ? _stats[ordinal] : null;
         if (stat == null)
             return 0;
 
@@ -71,11 +78,7 @@ public class PlayerStats implements IPlayerStats {
     @Override
     public void addScore(StatType type, double amount) {
 
-        Stat stat = _stats.get(type.getName());
-        if (stat == null) {
-            stat = new Stat(type.getName(), 0, 0, 0, 0);
-            _stats.put(type.getName(), stat);
-        }
+        Stat stat = getStat(StatOrdinals.get(type), type.getName());
 
         stat.records += 1;
         stat.total += amount;
@@ -106,10 +109,34 @@ public class PlayerStats implements IPlayerStats {
      * @param name  The name of the statistic. Case sensitive.
      */
     public Stat getStat(String name) {
-        Stat stat = _stats.get(name);
+        return getStat(StatOrdinals.get(name), name);
+    }
+
+    /**
+     * Get all statistic data records.
+     */
+    public Collection<Stat> getStats() {
+
+        List<Stat> stats = new ArrayList<>(_totalStats);
+
+        for (Stat stat : _stats) {
+            if (stat != null)
+                stats.add(stat);
+        }
+
+        return Collections.unmodifiableCollection(stats);
+    }
+
+    private Stat getStat(int ordinal, String name) {
+
+        if (ordinal >= _stats.length)
+            _stats = Arrays.copyOf(_stats, Math.max(ordinal + 1, StatOrdinals.size()));
+
+        Stat stat = _stats[ordinal];
         if (stat == null) {
             stat = new Stat(name, 0, 0, 0, 0);
-            _stats.put(name, stat);
+            _stats[ordinal] = stat;
+            _totalStats++;
         }
 
         return stat;
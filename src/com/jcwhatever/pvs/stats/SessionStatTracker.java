@@ -32,9 +32,9 @@ import com.jcwhatever.pvs.api.stats.StatType;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -43,7 +43,11 @@ import java.util.UUID;
 public class SessionStatTracker implements ISessionStatTracker {
 
     private final IArenaPlayer _player;
-    private final Map<StatType, StatScore> _scores = new HashMap<>(15);
+
+    // scores indexed by statistic ordinal
+    private double[] _scores = new double[0];
+    private StatType[] _types = new StatType[0];
+    private int _totalTypes;
 
     /**
      * Constructor.
@@ -76,8 +80,8 @@ public class SessionStatTracker implements ISessionStatTracker {
     public double getScore(StatType type) {
         PreCon.notNull(type);
 
-        StatScore score = _scores.get(type);
-        return score == null ? 0.0D : score.score;
+        int ordinal = StatOrdinals.get(type);
+        return ordinal < _scores.length ? _scores[ordinal] : 0.0D;
     }
 
     @Override
@@ -87,18 +91,21 @@ public class SessionStatTracker implements ISessionStatTracker {
         if (Double.compare(amount, 0.0D) == 0)
             return;
 
-        StatScore score = _scores.get(type);
-        if (score == null) {
-            score = new StatScore(type);
-            _scores.put(type, score);
+        int ordinal = StatOrdinals.get(type);
+        if (ordinal >= _scores.length)
+            expand(ordinal);
+
+        if (_types[ordinal] == null) {
+            _types[ordinal] = type;
+            _totalTypes++;
         }
 
-        score.score += amount;
+        _scores[ordinal] += amount;
     }
 
     @Override
     public Collection<StatType> getStatTypes() {
-        return getStatTypes(new ArrayList<StatType>(_scores.size()));
+        return getStatTypes(new ArrayList<StatType>(_totalTypes));
     }
 
     @Override
@@ -106,18 +113,47 @@ public class SessionStatTracker implements ISessionStatTracker {
         PreCon.notNull(output);
 
         if (output instanceof ArrayList)
-            ((ArrayList) output).ensureCapacity(_scores.size());
+            ((ArrayList) output).ensureCapacity(_totalTypes);
 
-        output.addAll(_scores.keySet());
+        for (StatType type : _types) {
+            if (type != null)
+                output.add(type);
+        }
         return output;
     }
 
     public Collection<StatScore> getScores() {
-        return _scores.values();
+
+        List<StatScore> scores = new ArrayList<>(_totalTypes);
+
+        for (int i = 0; i < _types.length; i++) {
+            if (_types[i] == null)
+                continue;
+
+            StatScore score = new StatScore(_types[i]);
+            score.score = _scores[i];
+            scores.add(score);
+        }
+
+        return scores;
     }
 
     public void reset() {
-        _scores.clear();
+        Arrays.fill(_scores, 0.0D);
+        Arrays.fill(_types, null);
+        _totalTypes = 0;
+    }
+
+    /*
+     * Grow the score arrays to hold the specified ordinal and all
+     * currently assigned ordinals.
+     */
+    private void expand(int ordinal) {
+
+        int size = Math.max(ordinal + 1, StatOrdinals.size());
+
+        _scores = Arrays.copyOf(_scores, size);
+        _types = Arrays.copyOf(_types, size);
     }
 
     public static class StatScore {
@@ -0,0 +1,144 @@
+/*
+ * This file is part of PV-Star for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.pvs.stats;
+
+import com.jcwhatever.nucleus.utils.PreCon;
+import com.jcwhatever.pvs.api.stats.StatType;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Assigns dense ordinals to statistics.
+ *
+ * <p>Ordinals are assigned in registration order, starting at 0, and are used
+ * to index statistic arrays. A type that is not registered is assigned an
+ * ordinal the first time it is used. Types with the same name share an ordinal.</p>
+ *
+ * <p>Ordinals are looked up by type identity, so recording a score does not hash
+ * the statistic name. The maps are copied on write and can be read from any
+ * thread without locking.</p>
+ */
+public final class StatOrdinals {
+
+    private StatOrdinals() {}
+
+    private static final Object SYNC = new Object();
+
+    // replaced, never modified, while holding the sync lock
+    private static volatile Map<StatType, Integer> TYPE_ORDINALS = new IdentityHashMap<>(0);
+    private static volatile Map<String, Integer> NAME_ORDINALS = new HashMap<>(0);
+    private static volatile String[] NAMES = new String[0];
+
+    /**
+     * Get the ordinal of a statistic type.
+     *
+     * @param type  The statistic type.
+     */
+    public static int get(StatType type) {
+
+        Integer ordinal = TYPE_ORDINALS.get(type);
+        if (ordinal != null)
+            return ordinal;
+
+        PreCon.notNull(type);
+
+        synchronized (SYNC) {
+
+            ordinal = TYPE_ORDINALS.get(type);
+            if (ordinal != null)
+                return ordinal;
+
+            ordinal = assign(type.getName());
+
+            Map<StatType, Integer> typeOrdinals = new IdentityHashMap<>(TYPE_ORDINALS);
+            typeOrdinals.put(type, ordinal);
+            TYPE_ORDINALS = typeOrdinals;
+
+            return ordinal;
+        }
+    }
+
+    /**
+     * Get the ordinal of a statistic by name.
+     *
+     * @param statName  The name of the statistic. Case sensitive.
+     */
+    public static int get(String statName) {
+
+        Integer ordinal = NAME_ORDINALS.get(statName);
+        if (ordinal != null)
+            return ordinal;
+
+        PreCon.notNull(statName);
+
+        synchronized (SYNC) {
+            return assign(statName);
+        }
+    }
+
+    /**
+     * Get the name of the statistic assigned to an ordinal.
+     *
+     * @param ordinal  The statistic ordinal.
+     */
+    public static String getName(int ordinal) {
+        return NAMES[ordinal];
+    }
+
+    /**
+     * Get the number of assigned ordinals.
+     */
+    public static int size() {
+        return NAMES.length;
+    }
+
+    /*
+     * Get or assign the ordinal of a statistic name.
+     * Must be invoked while holding the sync lock.
+     */
+    private static int assign(String statName) {
+
+        Integer ordinal = NAME_ORDINALS.get(statName);
+        if (ordinal != null)
+            return ordinal;
+
+        ordinal = NAMES.length;
+
+        String[] names = Arrays.copyOf(NAMES, ordinal + 1);
+        names[ordinal] = statName;
+
+        Map<String, Integer> nameOrdinals = new HashMap<>(NAME_ORDINALS);
+        nameOrdinals.put(statName, ordinal);
+
+        // publish the name before the ordinal so getName never fails for a visible ordinal
+        NAMES = names;
+        NAME_ORDINALS = nameOrdinals;
+
+        return ordinal;
+    }
+}
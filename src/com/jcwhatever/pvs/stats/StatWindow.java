@@ -0,0 +1,164 @@
+/*
+ * This file is part of PV-Star for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.pvs.stats;
+
+import com.jcwhatever.nucleus.utils.PreCon;
+import com.jcwhatever.pvs.api.stats.IPlayerStats;
+import com.jcwhatever.pvs.api.stats.StatTracking.StatTrackType;
+import com.jcwhatever.pvs.api.stats.StatType;
+
+/**
+ * Time windows statistics can be tracked and filtered by.
+ *
+ * <p>Each window divides time into numbered buckets (UTC days, weeks starting
+ * on Monday or calendar months). Windowed statistics keep the scores of the
+ * last {@link #RETAINED_BUCKETS} buckets in a ring buffer, older buckets are
+ * overwritten.</p>
+ */
+public enum StatWindow {
+
+    ALL_TIME,
+    DAILY,
+    WEEKLY,
+    MONTHLY;
+
+    /**
+     * The number of buckets retained per windowed statistic,
+     * including the current bucket.
+     */
+    public static final int RETAINED_BUCKETS = 2;
+
+    private static final long DAY_MILLIS = 24L * 60L * 60L * 1000L;
+
+    /**
+     * Get the bucket the current time is in.
+     */
+    public int getCurrentBucket() {
+        return getBucket(System.currentTimeMillis());
+    }
+
+    /**
+     * Get the bucket a time is in.
+     *
+     * @param timeMillis  The time in epoch milliseconds.
+     *
+     * @return  The bucket number. Always 0 for {@link #ALL_TIME}.
+     */
+    public int getBucket(long timeMillis) {
+        return getDayBucket(getDay(timeMillis));
+    }
+
+    /**
+     * Get the bucket a UTC day is in.
+     *
+     * @param epochDay  The number of days since the epoch.
+     *
+     * @return  The bucket number. Always 0 for {@link #ALL_TIME}.
+     */
+    public int getDayBucket(int epochDay) {
+
+        switch (this) {
+            case ALL_TIME:
+                return 0;
+            case DAILY:
+                return epochDay;
+            case WEEKLY:
+                // the epoch is on a Thursday, shift so weeks start on Monday
+                return (epochDay + 3) / 7;
+            case MONTHLY:
+                return getMonth(epochDay);
+            default:
+                throw new AssertionError("StatWindow constant not recognized: " + name());
+        }
+    }
+
+    /**
+     * Get the UTC day a time is in.
+     *
+     * @param timeMillis  The time in epoch milliseconds.
+     *
+     * @return  The number of days since the epoch.
+     */
+    public static int getDay(long timeMillis) {
+        return (int)(timeMillis / DAY_MILLIS);
+    }
+
+    /*
+     * Get the UTC month of an epoch day as year * 12 + zero based month
+     * using the proleptic Gregorian civil from days algorithm.
+     */
+    private static int getMonth(long epochDay) {
+
+        // shift the epoch to 0000-03-01 so leap days are at the end of a year
+        long days = epochDay + 719468;
+        long era = (days >= 0 ? days : days - 146096) / 146097;
+        long dayOfEra = days - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+
+        // month starting from March, 0 to 11
+        long marchMonth = (5 * dayOfYear + 2) / 153;
+        long month = marchMonth < 10 ? marchMonth + 2 : marchMonth - 10;
+        long year = yearOfEra + era * 400 + (month < 2 ? 1 : 0);
+
+        return (int)(year * 12 + month);
+    }
+
+    /**
+     * Get the ring buffer slot of a bucket.
+     *
+     * @param bucket  The bucket number.
+     */
+    public static int getSlot(int bucket) {
+        return bucket % RETAINED_BUCKETS;
+    }
+
+    /**
+     * Get a players score within a window bucket.
+     *
+     * <p>Statistics that do not track windows have no windowed scores.</p>
+     *
+     * @param stats      The player statistics.
+     * @param type       The statistic type.
+     * @param trackType  The statistic tracking type.
+     * @param window     The window.
+     * @param bucket     The bucket within the window. Ignored for {@link #ALL_TIME}.
+     */
+    public static double getScore(IPlayerStats stats, StatType type,
+                                  StatTrackType trackType, StatWindow window, int bucket) {
+        PreCon.notNull(stats);
+        PreCon.notNull(type);
+        PreCon.notNull(trackType);
+        PreCon.notNull(window);
+
+        if (window == ALL_TIME)
+            return stats.getScore(type, trackType);
+
+        if (stats instanceof IWindowedPlayerStats)
+            return ((IWindowedPlayerStats) stats).getScore(type, trackType, window, bucket);
+
+        return 0.0D;
+    }
+}
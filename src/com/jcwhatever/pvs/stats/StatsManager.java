@@ -26,6 +26,7 @@ package com.jcwhatever.pvs.stats;
 
 import com.jcwhatever.nucleus.events.manager.EventMethod;
 import com.jcwhatever.nucleus.events.manager.IEventListener;
+import com.jcwhatever.nucleus.managed.scheduler.Scheduler;
 import com.jcwhatever.nucleus.providers.sql.ISqlDatabase;
 import com.jcwhatever.nucleus.providers.sql.Sql;
 import com.jcwhatever.nucleus.storage.IDataNode;
@@ -33,7 +34,11 @@ import com.jcwhatever.nucleus.utils.PreCon;
 import com.jcwhatever.nucleus.utils.observer.future.FutureResultSubscriber;
 import com.jcwhatever.nucleus.utils.observer.future.Result;
 import com.jcwhatever.pvs.api.PVStarAPI;
+import com.jcwhatever.pvs.api.arena.IArena;
 import com.jcwhatever.pvs.api.events.ArenaDisposeEvent;
+import com.jcwhatever.pvs.api.events.ArenaEndedEvent;
+import com.jcwhatever.pvs.api.events.PVStarLoadedEvent;
+import com.jcwhatever.pvs.api.events.players.PlayerJoinedArenaEvent;
 import com.jcwhatever.pvs.api.stats.IArenaStats;
 import com.jcwhatever.pvs.api.stats.IStatsFilter;
 import com.jcwhatever.pvs.api.stats.IStatsManager;
@@ -41,12 +46,18 @@ import com.jcwhatever.pvs.api.stats.StatType;
 import com.jcwhatever.pvs.api.utils.Msg;
 import com.jcwhatever.pvs.stats.disk.DiskArenaStats;
 import com.jcwhatever.pvs.stats.disk.DiskStatFilter;
+import com.jcwhatever.pvs.stats.disk.DiskStatsWriter;
+import com.jcwhatever.pvs.stats.disk.JournalArenaStats;
 import com.jcwhatever.pvs.stats.sql.SqlArenaStats;
 import com.jcwhatever.pvs.stats.sql.SqlDataTables;
 import com.jcwhatever.pvs.stats.sql.SqlStatFilter;
+import com.jcwhatever.pvs.stats.sql.SqlStatsPrefetcher;
+import com.jcwhatever.pvs.stats.sql.SqlStatsWriter;
+import org.bukkit.Bukkit;
 import org.bukkit.plugin.Plugin;
 
 import javax.annotation.Nullable;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -58,6 +69,7 @@ import java.util.UUID;
  */
 public class StatsManager implements IStatsManager, IEventListener{
 
+    private final IDataNode _dataNode;
     private final Map<UUID, IArenaStats> _arenaStats = new HashMap<>(50);
     private final Map<String, StatType> _typeMap = new HashMap<>(25);
 
@@ -65,8 +77,18 @@ public class StatsManager implements IStatsManager, IEventListener{
     private final String _databaseName;
     private final String _userName;
     private final String _password;
+    private final DiskStatsWriter _diskWriter;
+    private final SqlStatsWriter _sqlWriter;
+    private final boolean _useJournal;
+    private final boolean _useRankTable;
+    private final boolean _useWindows;
+    private final int _rankRefreshTicks;
+    private final int _prefetchConcurrency;
     private boolean _useDatabase;
     private SqlDataTables _tables;
+    private SqlStatsPrefetcher _prefetcher;
+    private boolean _isConnecting;
+    private StatsMigration _migration;
 
     /**
      * Constructor.
@@ -76,12 +98,40 @@ public class StatsManager implements IStatsManager, IEventListener{
     public StatsManager(IDataNode dataNode) {
         PreCon.notNull(dataNode);
 
+        _dataNode = dataNode;
         _useDatabase = dataNode.getBoolean("use-database", false);
         _address = dataNode.getString("db-address", "localhost");
         _databaseName = dataNode.getString("db-name", "databaseName");
         _userName = dataNode.getString("db-user", "userName");
         _password = dataNode.getString("db-pass", "password");
 
+        // opt-in materialized leaderboard tables, rebuilt per arena when a game
+        // ends and for all arenas on a schedule, 0 disables the schedule.
+        _useRankTable = dataNode.getBoolean("db-rank-table", false);
+        _rankRefreshTicks = dataNode.getInteger("db-rank-refresh-ticks", 20 * 60 * 10);
+
+        // track daily, weekly and monthly scores in addition to all-time scores
+        _useWindows = dataNode.getBoolean("stat-windows", false);
+
+        // maximum concurrent statistics prefetch queries, 0 disables prefetching
+        _prefetchConcurrency = dataNode.getInteger("db-prefetch-concurrency", 2);
+
+        // "yaml" stores disk statistics in data nodes, "journal" in binary journals
+        _useJournal = "journal".equalsIgnoreCase(dataNode.getString("disk-format", "yaml"));
+
+        if (_useWindows && _useJournal && !_useDatabase) {
+            Msg.warning("Statistic windows are not tracked by the journal disk format. " +
+                    "Windowed leaderboards will be empty.");
+        }
+
+        // maximum ticks modified disk statistics can remain unsaved
+        _diskWriter = new DiskStatsWriter(
+                Math.max(1, dataNode.getInteger("disk-max-staleness-ticks", 20 * 60)));
+
+        // maximum ticks added database scores can remain unwritten
+        _sqlWriter = new SqlStatsWriter(
+                Math.max(1, dataNode.getInteger("db-max-staleness-ticks", 20 * 30)));
+
         if (_useDatabase)
             loadDatabase();
 
@@ -98,6 +148,19 @@ public class StatsManager implements IStatsManager, IEventListener{
         PreCon.notNull(type);
 
         _typeMap.put(type.getName().toLowerCase(), type);
+        StatOrdinals.get(type);
+    }
+
+    /**
+     * Determine if scores are tracked in daily, weekly and monthly windows.
+     *
+     * <p>Windows are not tracked by the journal disk format. Filters with a
+     * window return no results when windows are not tracked.</p>
+     */
+    public boolean isWindowTracked() {
+        return _useDatabase
+                ? _tables != null && _tables.getWindowTable() != null
+                : _useWindows && !_useJournal;
     }
 
     @Override
@@ -124,10 +187,14 @@ public class StatsManager implements IStatsManager, IEventListener{
                 if (_tables == null)
                     throw new IllegalStateException("Not ready to use the database yet.");
 
-                stats = new SqlArenaStats(arenaId, _tables.getTable());
+                stats = new SqlArenaStats(arenaId, _tables, _sqlWriter);
+            }
+            else if (_useJournal) {
+                File folder = new File(PVStarAPI.getPlugin().getDataFolder(), "stats");
+                stats = new JournalArenaStats(arenaId, new File(folder, arenaId.toString()));
             }
             else {
-                stats = new DiskArenaStats(arenaId);
+                stats = new DiskArenaStats(arenaId, _diskWriter, _useWindows);
             }
 
             _arenaStats.put(arenaId, stats);
@@ -139,31 +206,246 @@ public class StatsManager implements IStatsManager, IEventListener{
     @Override
     public IStatsFilter createFilter() {
         return _useDatabase
-                ? new SqlStatFilter(_tables.getTable())
+                ? new SqlStatFilter(_tables)
                 : new DiskStatFilter(this);
     }
 
+    /**
+     * Save all pending statistics changes.
+     *
+     * <p>Invoked when a game ends and before a migration.</p>
+     */
+    public void flush() {
+        _diskWriter.flush();
+        _sqlWriter.flush();
+    }
+
+    /**
+     * Save all pending statistics changes and close journal files.
+     *
+     * <p>Invoked when the plugin is disabled. Journal files are reopened
+     * by the next appended record.</p>
+     */
+    public void close() {
+        flush();
+
+        for (IArenaStats stats : _arenaStats.values()) {
+            if (stats instanceof JournalArenaStats)
+                ((JournalArenaStats) stats).close();
+        }
+    }
+
+    /**
+     * Connect to the statistics database if not already connected.
+     *
+     * <p>Used to migrate statistics while the disk backend is in use.</p>
+     *
+     * @return  True if connected, false if the connection is pending or failed.
+     */
+    public boolean connectDatabase() {
+
+        if (_tables != null && _tables.isLoaded())
+            return true;
+
+        if (_tables == null && !_isConnecting)
+            loadDatabase();
+
+        return false;
+    }
+
+    /**
+     * Get the current or most recent statistics migration.
+     *
+     * @return  The migration or null if none was started.
+     */
+    @Nullable
+    public StatsMigration getMigration() {
+        return _migration;
+    }
+
+    /**
+     * Start migrating statistics of all arenas between the disk and database backends.
+     *
+     * @param direction      The migration direction.
+     * @param batchSize      The maximum number of players or rows migrated per batch.
+     * @param intervalTicks  The number of ticks between batches.
+     *
+     * @throws IllegalStateException if the database is not connected, a migration
+     * is running, exporting to disk while disk statistics are in use or importing
+     * to the database while database statistics are in use.
+     */
+    public StatsMigration migrate(StatsMigration.Direction direction, int batchSize, int intervalTicks) {
+        PreCon.notNull(direction);
+
+        checkMigrate(direction);
+
+        List<UUID> arenaIds = new ArrayList<>(PVStarAPI.getArenaManager().getArenaCount());
+        for (IArena arena : PVStarAPI.getArenaManager().getArenas()) {
+            arenaIds.add(arena.getId());
+        }
+
+        _migration = new StatsMigration(_dataNode.getNode("migration"), _tables.getTable(),
+                direction, arenaIds, batchSize, intervalTicks);
+        _migration.start();
+
+        return _migration;
+    }
+
+    /**
+     * Resume an interrupted statistics migration.
+     *
+     * @param batchSize      The maximum number of players or rows migrated per batch.
+     * @param intervalTicks  The number of ticks between batches.
+     *
+     * @return  The resumed migration or null if there is no interrupted migration.
+     *
+     * @throws IllegalStateException if the database is not connected or a migration is running.
+     */
+    @Nullable
+    public StatsMigration resumeMigration(int batchSize, int intervalTicks) {
+
+        if (!connectDatabase())
+            throw new IllegalStateException("Not ready to use the database yet.");
+
+        StatsMigration migration = StatsMigration.load(
+                _dataNode.getNode("migration"), _tables.getTable(), batchSize, intervalTicks);
+
+        if (migration == null)
+            return null;
+
+        checkMigrate(migration.getDirection());
+
+        _migration = migration;
+        _migration.start();
+
+        return _migration;
+    }
+
+    /**
+     * Get the database statistics write buffer.
+     */
+    public SqlStatsWriter getSqlWriter() {
+        return _sqlWriter;
+    }
+
     @EventMethod
     private void onArenaDeleted(ArenaDisposeEvent event) {
-        _arenaStats.remove(event.getArena().getId());
+        IArenaStats stats = _arenaStats.remove(event.getArena().getId());
+
+        if (stats instanceof JournalArenaStats)
+            ((JournalArenaStats) stats).close();
+    }
+
+    @EventMethod
+    private void onPlayerJoinedArena(PlayerJoinedArenaEvent event) {
+
+        if (_prefetcher != null)
+            _prefetcher.prefetch(event.getPlayer().getUniqueId(), event.getArena().getId());
+    }
+
+    @EventMethod
+    private void onArenaEnded(ArenaEndedEvent event) {
+
+        if (!PVStarAPI.getPlugin().isLoaded())
+            return;
+
+        final UUID arenaId = event.getArena().getId();
+
+        // players are removed after the ended event is called,
+        // flush after their session statistics are recorded.
+        Scheduler.runTaskLater(PVStarAPI.getPlugin(), 1, new Runnable() {
+            @Override
+            public void run() {
+                flush();
+
+                // rebuilt after the flush transaction so the game scores are ranked
+                if (_useDatabase && _tables != null)
+                    _tables.refreshRanks(arenaId);
+            }
+        });
+    }
+
+    @EventMethod
+    private void onPVStarLoaded(@SuppressWarnings("unused") PVStarLoadedEvent event) {
+
+        // the ranking tables are rebuilt once the arenas are loaded
+        if (_useDatabase && _tables != null)
+            _tables.backfillRanks();
+    }
+
+    /*
+     * Make sure a migration can be started.
+     */
+    private void checkMigrate(StatsMigration.Direction direction) {
+
+        if (_migration != null && _migration.isRunning())
+            throw new IllegalStateException("A statistics migration is already running.");
+
+        if (!connectDatabase())
+            throw new IllegalStateException("Not ready to use the database yet.");
+
+        if (direction == StatsMigration.Direction.SQL_TO_DISK && !_useDatabase)
+            throw new IllegalStateException("Cannot export to disk while disk statistics are in use.");
+
+        // imported rows replace database rows, scores recorded since the switch would be lost
+        if (direction == StatsMigration.Direction.DISK_TO_SQL && _useDatabase)
+            throw new IllegalStateException("Cannot import to the database while database statistics are in use.");
+
+        // migrate pending changes
+        flush();
+    }
+
+    /*
+     * Periodically rebuild the ranking table from the statistics table.
+     */
+    private void scheduleRankRefresh() {
+
+        Scheduler.runTaskRepeat(PVStarAPI.getPlugin(), _rankRefreshTicks, _rankRefreshTicks, new Runnable() {
+            @Override
+            public void run() {
+
+                // arenas are not available until the plugin is loaded
+                if (_tables == null || !PVStarAPI.getPlugin().isLoaded())
+                    return;
+
+                for (IArena arena : PVStarAPI.getArenaManager().getArenas()) {
+                    _tables.refreshRanks(arena.getId());
+                }
+            }
+        });
     }
 
     private void loadDatabase() {
 
         Msg.info("Connecting to statistics database ({0}) at {1}", _databaseName, _address);
 
+        _isConnecting = true;
+
         Sql.connect(_address, _databaseName, _userName, _password)
                 .onResult(new FutureResultSubscriber<ISqlDatabase>() {
                     @Override
                     public void on(Result<ISqlDatabase> result) {
+                        _isConnecting = false;
                         if (!result.hasResult())
                             _useDatabase = false;
                     }
                     @Override
                     public void onSuccess(Result<ISqlDatabase> result) {
                         ISqlDatabase database = result.getResult();
-                        _tables = new SqlDataTables(database);
+                        _tables = new SqlDataTables(database, _useRankTable, _useWindows);
                         Msg.info("Connection success.");
+
+                        // connected only to migrate statistics
+                        if (!_useDatabase)
+                            return;
+
+                        if (_useRankTable && _rankRefreshTicks > 0)
+                            scheduleRankRefresh();
+
+                        if (_prefetchConcurrency > 0) {
+                            _prefetcher = new SqlStatsPrefetcher(_tables, _prefetchConcurrency);
+                            Bukkit.getPluginManager().registerEvents(_prefetcher, PVStarAPI.getPlugin());
+                        }
                     }
                     @Override
                     public void onError(Result<ISqlDatabase> result) {
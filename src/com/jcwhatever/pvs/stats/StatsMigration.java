@@ -0,0 +1,517 @@
+/*
+ * This file is part of PV-Star for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.pvs.stats;
+
+import com.jcwhatever.nucleus.managed.scheduler.IScheduledTask;
+import com.jcwhatever.nucleus.managed.scheduler.Scheduler;
+import com.jcwhatever.nucleus.providers.sql.ISqlQueryResult;
+import com.jcwhatever.nucleus.providers.sql.ISqlResult;
+import com.jcwhatever.nucleus.providers.sql.ISqlTable;
+import com.jcwhatever.nucleus.providers.sql.SqlOrder;
+import com.jcwhatever.nucleus.providers.sql.observer.SqlAutoCloseSubscriber;
+import com.jcwhatever.nucleus.providers.sql.statement.ISqlTransaction;
+import com.jcwhatever.nucleus.providers.sql.statement.generators.IOrderGenerator;
+import com.jcwhatever.nucleus.providers.sql.statement.generators.SqlColumnOrder;
+import com.jcwhatever.nucleus.providers.storage.DataStorage;
+import com.jcwhatever.nucleus.storage.DataPath;
+import com.jcwhatever.nucleus.storage.IDataNode;
+import com.jcwhatever.nucleus.utils.PreCon;
+import com.jcwhatever.nucleus.utils.text.TextUtils;
+import com.jcwhatever.pvs.api.PVStarAPI;
+import com.jcwhatever.pvs.api.utils.Msg;
+
+import javax.annotation.Nullable;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Copies arena statistics between the disk and database backends.
+ *
+ * <p>Statistics are copied in bounded batches, one batch per run of a repeating
+ * task, so the server stays responsive. A database batch must finish before the
+ * next one is started. Progress is stored in a data node after each batch so an
+ * interrupted migration can be resumed.</p>
+ *
+ * <p>Database rows are read in (playerId, statName) key order and paged from the
+ * key of the last copied row rather than by offset, so rows added to the live
+ * database while exporting do not shift later pages.</p>
+ *
+ * <p>Rows are replaced rather than added to so a batch that is repeated after
+ * a resume does not count scores twice. The target backend must therefore not
+ * be in use while migrating, see {@link StatsManager#migrate}.</p>
+ */
+public class StatsMigration implements Runnable {
+
+    /**
+     * Direction of a migration.
+     */
+    public enum Direction {
+        DISK_TO_SQL,
+        SQL_TO_DISK
+    }
+
+    private final IDataNode _progressNode;
+    private final ISqlTable _table;
+    private final Direction _direction;
+    private final List<UUID> _arenaIds;
+    private final int _batchSize;
+    private final int _intervalTicks;
+
+    private int _arenaIndex;
+
+    // index of the next disk player node copied to the database
+    private int _offset;
+    private long _totalMigrated;
+
+    // key of the last database row copied to disk
+    private UUID _lastPlayerId;
+    private String _lastStatName;
+
+    private IScheduledTask _task;
+    private boolean _isWaiting;
+    private boolean _isComplete;
+
+    // disk data of the arena currently being migrated
+    private IDataNode _arenaNode;
+    private List<IDataNode> _playerNodes;
+
+    /**
+     * Constructor.
+     *
+     * @param progressNode   The data node used to store progress.
+     * @param table          The database statistics table.
+     * @param direction      The migration direction.
+     * @param arenaIds       The IDs of the arenas to migrate.
+     * @param batchSize      The maximum number of players (disk to sql) or rows
+     *                       (sql to disk) migrated per batch.
+     * @param intervalTicks  The number of ticks between batches.
+     */
+    public StatsMigration(IDataNode progressNode, ISqlTable table, Direction direction,
+                          List<UUID> arenaIds, int batchSize, int intervalTicks) {
+        PreCon.notNull(progressNode);
+        PreCon.notNull(table);
+        PreCon.notNull(direction);
+        PreCon.notNull(arenaIds);
+        PreCon.greaterThanZero(batchSize);
+        PreCon.greaterThanZero(intervalTicks);
+
+        _progressNode = progressNode;
+        _table = table;
+        _direction = direction;
+        _arenaIds = new ArrayList<>(arenaIds);
+        _batchSize = batchSize;
+        _intervalTicks = intervalTicks;
+    }
+
+    /**
+     * Load an interrupted migration from its progress data node.
+     *
+     * @param progressNode   The data node progress was stored in.
+     * @param table          The database statistics table.
+     * @param batchSize      The maximum number of players or rows migrated per batch.
+     * @param intervalTicks  The number of ticks between batches.
+     *
+     * @return  The migration or null if there is no interrupted migration.
+     */
+    @Nullable
+    public static StatsMigration load(IDataNode progressNode, ISqlTable table,
+                                      int batchSize, int intervalTicks) {
+        PreCon.notNull(progressNode);
+        PreCon.notNull(table);
+
+        Direction direction = progressNode.getEnum("direction", Direction.class);
+        if (direction == null)
+            return null;
+
+        List<UUID> arenaIds = new ArrayList<>(10);
+        for (String id : progressNode.getStringList("arenas", new ArrayList<String>(0))) {
+            UUID arenaId = TextUtils.parseUUID(id);
+            if (arenaId != null)
+                arenaIds.add(arenaId);
+        }
+
+        StatsMigration migration = new StatsMigration(
+                progressNode, table, direction, arenaIds, batchSize, intervalTicks);
+
+        migration._arenaIndex = progressNode.getInteger("arena-index", 0);
+        migration._offset = progressNode.getInteger("offset", 0);
+        migration._totalMigrated = progressNode.getLong("migrated", 0);
+
+        String lastPlayerId = progressNode.getString("last-player");
+        if (lastPlayerId != null) {
+            migration._lastPlayerId = TextUtils.parseUUID(lastPlayerId);
+            migration._lastStatName = progressNode.getString("last-stat");
+        }
+
+        return migration;
+    }
+
+    /**
+     * Get the migration direction.
+     */
+    public Direction getDirection() {
+        return _direction;
+    }
+
+    /**
+     * Get the number of arenas to migrate.
+     */
+    public int totalArenas() {
+        return _arenaIds.size();
+    }
+
+    /**
+     * Get the number of arenas that are completely migrated.
+     */
+    public int getCompletedArenas() {
+        return Math.min(_arenaIndex, _arenaIds.size());
+    }
+
+    /**
+     * Get the number of players (disk to sql) or rows (sql to disk) migrated.
+     */
+    public long getTotalMigrated() {
+        return _totalMigrated;
+    }
+
+    /**
+     * Determine if the migration task is running.
+     */
+    public boolean isRunning() {
+        return _task != null;
+    }
+
+    /**
+     * Determine if all arenas are migrated.
+     */
+    public boolean isComplete() {
+        return _isComplete;
+    }
+
+    /**
+     * Start or continue the migration.
+     */
+    public void start() {
+
+        if (_task != null || _isComplete)
+            return;
+
+        saveProgress();
+
+        Msg.info("Starting statistics migration ({0}) of {1} arenas.", _direction, _arenaIds.size());
+
+        _task = Scheduler.runTaskRepeat(PVStarAPI.getPlugin(), 1, _intervalTicks, this);
+    }
+
+    /**
+     * Stop the migration. Progress is kept so it can be resumed.
+     */
+    public void cancel() {
+
+        if (_task == null)
+            return;
+
+        _task.cancel();
+        _task = null;
+
+        Msg.info("Statistics migration paused after {0} of {1} arenas.",
+                getCompletedArenas(), _arenaIds.size());
+    }
+
+    @Override
+    public void run() {
+
+        // previous database batch has not finished
+        if (_isWaiting)
+            return;
+
+        if (_arenaIndex >= _arenaIds.size()) {
+            complete();
+            return;
+        }
+
+        UUID arenaId = _arenaIds.get(_arenaIndex);
+
+        switch (_direction) {
+            case DISK_TO_SQL:
+                diskToSqlBatch(arenaId);
+                break;
+            case SQL_TO_DISK:
+                sqlToDiskBatch(arenaId);
+                break;
+        }
+    }
+
+    /*
+     * Copy a batch of players from the arena data node into the database.
+     */
+    private void diskToSqlBatch(final UUID arenaId) {
+
+        if (_playerNodes == null) {
+            _arenaNode = getArenaNode(arenaId);
+            _playerNodes = new ArrayList<>(_arenaNode.size());
+
+            for (IDataNode playerNode : _arenaNode) {
+                _playerNodes.add(playerNode);
+            }
+        }
+
+        if (_offset >= _playerNodes.size()) {
+            nextArena();
+            return;
+        }
+
+        int end = Math.min(_offset + _batchSize, _playerNodes.size());
+        final int batchCount = end - _offset;
+
+        ISqlTransaction transaction = _table.getDatabase().createTransaction();
+
+        for (int i = _offset; i < end; i++) {
+
+            IDataNode playerNode = _playerNodes.get(i);
+
+            UUID playerId = TextUtils.parseUUID(playerNode.getName());
+            if (playerId == null)
+                continue;
+
+            _table.deleteRows()
+                    .where("arenaId").isEqualTo(arenaId)
+                    .and("playerId").isEqualTo(playerId)
+                    .addToTransaction(transaction);
+
+            for (IDataNode statNode : playerNode) {
+
+                double total = statNode.getDouble("total", 0.0D);
+
+                // disk statistics do not count records
+                int records = total != 0.0D ? 1 : 0;
+
+                _table.insertRow("arenaId", "playerId", "statName", "records", "total", "max", "min")
+                        .values(arenaId, playerId, statNode.getName(), records, total,
+                                statNode.getDouble("max", 0.0D), statNode.getDouble("min", 0.0D))
+                        .addToTransaction(transaction);
+            }
+        }
+
+        _isWaiting = true;
+
+        transaction.execute().onResult(new SqlAutoCloseSubscriber() {
+            @Override
+            public void onResult(@Nullable ISqlResult result, @Nullable String message) {
+
+                _isWaiting = false;
+
+                if (result == null) {
+                    fail(message);
+                    return;
+                }
+
+                _offset += batchCount;
+                _totalMigrated += batchCount;
+                saveProgress();
+            }
+        });
+    }
+
+    /*
+     * Copy a batch of database rows into the arena data node.
+     */
+    private void sqlToDiskBatch(final UUID arenaId) {
+
+        if (_arenaNode == null)
+            _arenaNode = getArenaNode(arenaId);
+
+        // remaining rows of a player whose rows were split by the previous batch
+        final boolean isPlayerRemainder = _lastPlayerId != null && _lastStatName != null;
+
+        IOrderGenerator order = new IOrderGenerator() {
+            @Override
+            public SqlColumnOrder[] getOrder(ISqlTable table) {
+                return new SqlColumnOrder[] {
+                        new SqlColumnOrder(_table, "playerId", SqlOrder.ASCENDING),
+                        new SqlColumnOrder(_table, "statName", SqlOrder.ASCENDING)
+                };
+            }
+        };
+
+        SqlAutoCloseSubscriber subscriber = new SqlAutoCloseSubscriber() {
+            @Override
+            public void onResult(@Nullable ISqlResult result, @Nullable String message) {
+
+                _isWaiting = false;
+
+                ISqlQueryResult data = result != null ? result.getFirstResult() : null;
+                if (data == null) {
+                    fail(message);
+                    return;
+                }
+
+                int count = 0;
+                UUID lastPlayerId = null;
+                String lastStatName = null;
+
+                try {
+                    while (data.next()) {
+
+                        lastPlayerId = data.getUUID("playerId");
+                        lastStatName = data.getString("statName");
+
+                        IDataNode statNode = _arenaNode
+                                .getNode(lastPlayerId.toString())
+                                .getNode(lastStatName);
+
+                        statNode.set("total", data.getDouble("total"));
+                        statNode.set("max", data.getDouble("max"));
+                        statNode.set("min", data.getDouble("min"));
+                        count++;
+                    }
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                    fail("Failed to parse data from database results.");
+                    return;
+                }
+
+                _arenaNode.save();
+                _totalMigrated += count;
+
+                if (count < _batchSize) {
+
+                    if (!isPlayerRemainder) {
+                        nextArena();
+                        return;
+                    }
+
+                    // the players rows are copied, continue with the next player
+                    _lastStatName = null;
+                }
+                else {
+                    _lastPlayerId = lastPlayerId;
+                    _lastStatName = lastStatName;
+                }
+
+                saveProgress();
+            }
+        };
+
+        _isWaiting = true;
+
+        if (_lastPlayerId == null) {
+            _table.selectRows("playerId", "statName", "total", "max", "min")
+                    .where("arenaId").isEqualTo(arenaId)
+                    .orderBy(order)
+                    .limit(0, _batchSize)
+                    .execute()
+                    .onResult(subscriber);
+        }
+        else if (isPlayerRemainder) {
+            _table.selectRows("playerId", "statName", "total", "max", "min")
+                    .where("arenaId").isEqualTo(arenaId)
+                    .and("playerId").isEqualTo(_lastPlayerId)
+                    .and("statName").isGreaterThan(_lastStatName)
+                    .orderBy(order)
+                    .limit(0, _batchSize)
+                    .execute()
+                    .onResult(subscriber);
+        }
+        else {
+            _table.selectRows("playerId", "statName", "total", "max", "min")
+                    .where("arenaId").isEqualTo(arenaId)
+                    .and("playerId").isGreaterThan(_lastPlayerId)
+                    .orderBy(order)
+                    .limit(0, _batchSize)
+                    .execute()
+                    .onResult(subscriber);
+        }
+    }
+
+    private IDataNode getArenaNode(UUID arenaId) {
+
+        IDataNode node = DataStorage.get(PVStarAPI.getPlugin(), new DataPath("stats." + arenaId));
+        node.load();
+
+        return node;
+    }
+
+    private void nextArena() {
+
+        _arenaIndex++;
+        _offset = 0;
+        _lastPlayerId = null;
+        _lastStatName = null;
+        _arenaNode = null;
+        _playerNodes = null;
+
+        saveProgress();
+
+        Msg.info("Statistics migration ({0}): {1} of {2} arenas complete.",
+                _direction, _arenaIndex, _arenaIds.size());
+    }
+
+    private void complete() {
+
+        _isComplete = true;
+
+        if (_task != null) {
+            _task.cancel();
+            _task = null;
+        }
+
+        _progressNode.remove();
+        _progressNode.save();
+
+        Msg.info("Statistics migration ({0}) complete. {1} entries migrated.",
+                _direction, _totalMigrated);
+    }
+
+    private void fail(@Nullable String message) {
+
+        if (_task != null) {
+            _task.cancel();
+            _task = null;
+        }
+
+        Msg.warning("Statistics migration ({0}) stopped at arena {1} of {2}: {3}",
+                _direction, _arenaIndex + 1, _arenaIds.size(), message);
+    }
+
+    private void saveProgress() {
+
+        List<String> arenaIds = new ArrayList<>(_arenaIds.size());
+        for (UUID arenaId : _arenaIds) {
+            arenaIds.add(arenaId.toString());
+        }
+
+        _progressNode.set("direction", _direction);
+        _progressNode.set("arenas", arenaIds);
+        _progressNode.set("arena-index", _arenaIndex);
+        _progressNode.set("offset", _offset);
+        _progressNode.set("last-player", _lastPlayerId != null ? _lastPlayerId.toString() : null);
+        _progressNode.set("last-stat", _lastStatName);
+        _progressNode.set("migrated", _totalMigrated);
+        _progressNode.save();
+    }
+}
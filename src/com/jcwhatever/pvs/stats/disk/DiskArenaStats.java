@@ -36,7 +36,9 @@ import com.jcwhatever.nucleus.utils.text.TextUtils;
 import com.jcwhatever.pvs.api.PVStarAPI;
 import com.jcwhatever.pvs.api.stats.IArenaStats;
 import com.jcwhatever.pvs.api.stats.IPlayerStats;
+import com.jcwhatever.pvs.api.stats.StatTracking.StatTrackType;
 import com.jcwhatever.pvs.api.stats.StatType;
+import com.jcwhatever.pvs.stats.StatWindow;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
@@ -48,7 +50,7 @@ import java.util.UUID;
 /**
  * PVStar implementation of {@link IArenaStats}.
  */
-public class DiskArenaStats implements IArenaStats {
+public class DiskArenaStats implements IDiskArenaStats {
 
     @SuppressWarnings("MismatchedQueryAndUpdateOfCollection")
     private final Map<UUID, DiskPlayerStats> _onlineCache = new PlayerMap<>(
@@ -59,16 +61,24 @@ public class DiskArenaStats implements IArenaStats {
 
     private final UUID _arenaId;
     private final IDataNode _dataNode;
+    private final DiskStatsWriter _writer;
+    private final boolean _isWindowed;
+    private final StatIndexMap _indexes = new StatIndexMap(this);
 
     /**
      * Constructor.
      *
      * @param arenaId  The ID of the arena the stats are for.
+     * @param writer      The write-behind buffer used to save modified statistics.
+     * @param isWindowed  True to track scores in time windows.
      */
-    public DiskArenaStats(UUID arenaId) {
+    public DiskArenaStats(UUID arenaId, DiskStatsWriter writer, boolean isWindowed) {
         PreCon.notNull(arenaId);
+        PreCon.notNull(writer);
 
         _arenaId = arenaId;
+        _writer = writer;
+        _isWindowed = isWindowed;
 
         _dataNode = DataStorage.get(PVStarAPI.getPlugin(),
                 new DataPath("stats." + _arenaId));
@@ -98,7 +108,8 @@ public class DiskArenaStats implements IArenaStats {
         stats.addScore(type, amount);
     }
 
-    List<IPlayerStats> getPlayerStats() {
+    @Override
+    public List<IPlayerStats> getPlayerStats() {
 
         List<IPlayerStats> results = new ArrayList<>(_dataNode.size());
 
@@ -114,6 +125,36 @@ public class DiskArenaStats implements IArenaStats {
         return results;
     }
 
+    @Override
+    public StatIndex getIndex(StatType type, StatTrackType trackType, StatWindow window, int bucket) {
+        return _indexes.get(type, trackType, window, bucket);
+    }
+
+    /**
+     * Determine if scores are tracked in time windows.
+     */
+    public boolean isWindowed() {
+        return _isWindowed;
+    }
+
+    /**
+     * Invoked by {@link DiskPlayerStats} after a score is added.
+     *
+     * <p>Updates score indexes and schedules the arena statistics to be
+     * saved by the write-behind buffer.</p>
+     */
+    void onScoreAdded(DiskPlayerStats stats, StatType type) {
+        _indexes.update(stats, type);
+        _writer.markDirty(this);
+    }
+
+    /**
+     * Save the arena statistics data node.
+     */
+    void save() {
+        _dataNode.save();
+    }
+
     private IDataNode getNode(UUID playerId) {
         return _dataNode.getNode(playerId.toString());
     }
@@ -122,7 +163,7 @@ public class DiskArenaStats implements IArenaStats {
 
         DiskPlayerStats stats = _weakCache.get(playerId);
         if (stats == null) {
-            stats = new DiskPlayerStats(playerId, getNode(playerId));
+            stats = new DiskPlayerStats(this, playerId, getNode(playerId));
 
             Player player = Bukkit.getPlayer(playerId);
             if (player != null && player.isOnline()) {
@@ -28,25 +28,34 @@ import com.jcwhatever.nucleus.storage.IDataNode;
 import com.jcwhatever.nucleus.utils.PreCon;
 import com.jcwhatever.pvs.api.stats.IPlayerStats;
 import com.jcwhatever.pvs.api.stats.StatTracking;
+import com.jcwhatever.pvs.api.stats.StatTracking.StatTrackType;
 import com.jcwhatever.pvs.api.stats.StatType;
+import com.jcwhatever.pvs.stats.IWindowedPlayerStats;
+import com.jcwhatever.pvs.stats.StatWindow;
 
 import java.util.UUID;
 
 /**
  * Disk based implementation of {@link IPlayerStats}.
+ *
+ * <p>When windows are enabled, each statistic node also stores a ring buffer
+ * of window buckets under "windows.<window>.<slot>".</p>
  */
-public class DiskPlayerStats implements IPlayerStats {
+public class DiskPlayerStats implements IWindowedPlayerStats {
 
+    private final DiskArenaStats _arenaStats;
     private final UUID _playerId;
     private final IDataNode _dataNode;
 
     /**
      * Constructor.
      *
-     * @param playerId  The ID of the player.
-     * @param dataNode  The players statistics data node.
+     * @param arenaStats  The owning arena statistics.
+     * @param playerId    The ID of the player.
+     * @param dataNode    The players statistics data node.
      */
-    DiskPlayerStats(UUID playerId, IDataNode dataNode) {
+    DiskPlayerStats(DiskArenaStats arenaStats, UUID playerId, IDataNode dataNode) {
+        _arenaStats = arenaStats;
         _playerId = playerId;
         _dataNode = dataNode;
     }
@@ -73,6 +82,31 @@ public class DiskPlayerStats implements IPlayerStats {
         }
     }
 
+    @Override
+    public double getScore(StatType type, StatTrackType trackType, StatWindow window, int bucket) {
+        PreCon.notNull(type);
+        PreCon.notNull(trackType);
+        PreCon.notNull(window);
+
+        if (window == StatWindow.ALL_TIME)
+            return getScore(type, trackType);
+
+        IDataNode node = getWindowNode(type, window, bucket);
+        if (node.getInteger("bucket", Integer.MIN_VALUE) != bucket)
+            return 0.0D;
+
+        switch (trackType) {
+            case TOTAL:
+                return node.getDouble("total", 0.0D);
+            case MIN:
+                return node.getDouble("min", 0.0D);
+            case MAX:
+                return node.getDouble("max", 0.0D);
+            default:
+                return 0.0D;
+        }
+    }
+
     @Override
     public void addScore(StatType type, double amount) {
         PreCon.notNull(type);
@@ -95,10 +129,50 @@ public class DiskPlayerStats implements IPlayerStats {
             node.set("max", max);
         }
 
-        node.save();
+        if (_arenaStats.isWindowed())
+            addWindowScores(type, amount);
+
+        // saved later by the write-behind buffer
+        _arenaStats.onScoreAdded(this, type);
     }
 
     private IDataNode getNode(StatType type) {
         return _dataNode.getNode(type.getName());
     }
+
+    private IDataNode getWindowNode(StatType type, StatWindow window, int bucket) {
+        return getNode(type).getNode("windows." + window.name() + '.' + StatWindow.getSlot(bucket));
+    }
+
+    /*
+     * Add a score to the current bucket of each window, overwriting
+     * the ring buffer slot if it holds an expired bucket.
+     */
+    private void addWindowScores(StatType type, double amount) {
+
+        long now = System.currentTimeMillis();
+
+        for (StatWindow window : StatWindow.values()) {
+
+            if (window == StatWindow.ALL_TIME)
+                continue;
+
+            int bucket = window.getBucket(now);
+            IDataNode node = getWindowNode(type, window, bucket);
+
+            if (node.getInteger("bucket", Integer.MIN_VALUE) != bucket) {
+                node.set("bucket", bucket);
+                node.set("records", 1);
+                node.set("total", amount);
+                node.set("max", amount);
+                node.set("min", amount);
+                continue;
+            }
+
+            node.set("records", node.getInteger("records") + 1);
+            node.set("total", node.getDouble("total") + amount);
+            node.set("max", Math.max(amount, node.getDouble("max")));
+            node.set("min", Math.min(amount, node.getDouble("min")));
+        }
+    }
 }
@@ -33,6 +33,7 @@ import com.jcwhatever.pvs.api.stats.StatOrder;
 import com.jcwhatever.pvs.api.stats.StatTracking;
 import com.jcwhatever.pvs.stats.AbstractStatsFilter;
 import com.jcwhatever.pvs.stats.PlayerStats;
+import com.jcwhatever.pvs.stats.StatWindow;
 import com.jcwhatever.pvs.stats.StatsManager;
 
 import java.util.ArrayList;
@@ -41,6 +42,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.UUID;
 
 /**
@@ -48,6 +50,9 @@ import java.util.UUID;
  */
 public class DiskStatFilter extends AbstractStatsFilter implements IStatsFilter {
 
+    // largest offset + limit that uses a bounded heap instead of a full sort
+    private static final int MAX_TOP_K = 256;
+
     private final StatsManager _manager;
 
     /**
@@ -63,13 +68,25 @@ public class DiskStatFilter extends AbstractStatsFilter implements IStatsFilter
 
     @Override
     public IFutureResult<List<IPlayerStats>> filter(int offset, int limit) {
+        PreCon.positiveNumber(offset);
+        PreCon.greaterThanZero(limit);
+
+        // windows are not tracked
+        if (getWindow() != StatWindow.ALL_TIME && !_manager.isWindowTracked()) {
+            List<IPlayerStats> empty = new ArrayList<>(0);
+            return FutureResultAgent.successResult(empty);
+        }
+
+        // a single arena and statistic can be paged directly from the sorted index
+        if (arenaIds().size() == 1 && totalStats() == 1)
+            return FutureResultAgent.successResult(filterIndexed(offset, limit));
 
         Map<UUID, PlayerStats> map = new HashMap<>(1024);
-        List<IPlayerStats> buffer = new ArrayList<>(1024);
+        List<PlayerStats> players = new ArrayList<>(1024);
 
         for (UUID arenaId : arenaIds()) {
 
-            DiskArenaStats arenaStats = (DiskArenaStats)_manager.getArenaStats(arenaId);
+            IDiskArenaStats arenaStats = (IDiskArenaStats)_manager.getArenaStats(arenaId);
 
             List<IPlayerStats> arenaPlayers = arenaStats.getPlayerStats();
             for (IPlayerStats playerStats : arenaPlayers) {
@@ -78,47 +95,139 @@ public class DiskStatFilter extends AbstractStatsFilter implements IStatsFilter
                 if (stats == null) {
                     stats = new PlayerStats(playerStats.getPlayerId());
                     map.put(playerStats.getPlayerId(), stats);
-                    buffer.add(stats);
+                    players.add(stats);
                 }
 
-                for (StatParam param : stats()) {
-                    PlayerStats.Stat stat = stats.getStat(param.statType.getName());
-                    stat.total(playerStats.getScore(param.statType, StatTracking.StatTrackType.TOTAL));
-                    stat.max(playerStats.getScore(param.statType, StatTracking.StatTrackType.MAX));
-                    stat.min(playerStats.getScore(param.statType, StatTracking.StatTrackType.MIN));
-                }
+                copyStats(playerStats, stats);
             }
         }
 
-        Collections.sort(buffer, new Comparator<IPlayerStats>() {
+        // copy sort keys once so comparisons do not look up scores
+        List<Ranked> ranked = new ArrayList<>(players.size());
+        for (PlayerStats stats : players) {
+            ranked.add(new Ranked(stats, getSortKeys(stats)));
+        }
+
+        List<IPlayerStats> results = new ArrayList<>(limit);
+        if (offset >= ranked.size())
+            return FutureResultAgent.successResult(results);
+
+        int topK = offset + limit;
+        Comparator<Ranked> comparator = getComparator();
+
+        if (topK <= MAX_TOP_K && topK < ranked.size()) {
+
+            // bounded heap, the head is the worst ranked of the current top K
+            PriorityQueue<Ranked> heap = new PriorityQueue<>(topK + 1, Collections.reverseOrder(comparator));
+
+            for (Ranked entry : ranked) {
+                heap.add(entry);
+                if (heap.size() > topK)
+                    heap.remove();
+            }
+
+            ranked = new ArrayList<>(heap);
+        }
+
+        Collections.sort(ranked, comparator);
+
+        for (int i=offset; i < topK && i < ranked.size(); i++) {
+            results.add(ranked.get(i).stats);
+        }
+
+        return FutureResultAgent.successResult(results);
+    }
+
+    /*
+     * Get a page of results from the sorted index of the only arena and
+     * statistic in the filter.
+     */
+    private List<IPlayerStats> filterIndexed(int offset, int limit) {
+
+        UUID arenaId = arenaIds().iterator().next();
+        StatParam param = getStat(0);
+
+        IDiskArenaStats arenaStats = (IDiskArenaStats)_manager.getArenaStats(arenaId);
+        List<IPlayerStats> page = arenaStats.getIndex(
+                param.statType, param.trackType, getWindow(), getWindowBucket()).getPage(offset, limit);
+
+        List<IPlayerStats> results = new ArrayList<>(page.size());
+
+        for (IPlayerStats playerStats : page) {
+            PlayerStats stats = new PlayerStats(playerStats.getPlayerId());
+            copyStats(playerStats, stats);
+            results.add(stats);
+        }
+
+        return results;
+    }
+
+    /*
+     * Copy the filtered statistics from arena player statistics into
+     * result statistics. Windowed scores are copied when a window is set.
+     */
+    private void copyStats(IPlayerStats source, PlayerStats target) {
+
+        StatWindow window = getWindow();
+        int bucket = getWindowBucket();
+
+        for (StatParam param : stats()) {
+            PlayerStats.Stat stat = target.getStat(param.statType.getName());
+            stat.total(StatWindow.getScore(source, param.statType, StatTracking.StatTrackType.TOTAL, window, bucket));
+            stat.max(StatWindow.getScore(source, param.statType, StatTracking.StatTrackType.MAX, window, bucket));
+            stat.min(StatWindow.getScore(source, param.statType, StatTracking.StatTrackType.MIN, window, bucket));
+        }
+    }
+
+    private double[] getSortKeys(IPlayerStats stats) {
+
+        double[] keys = new double[totalStats()];
+
+        for (int i=0; i < keys.length; i++) {
+            StatParam param = getStat(i);
+            keys[i] = stats.getScore(param.statType, param.trackType);
+        }
+
+        return keys;
+    }
+
+    private Comparator<Ranked> getComparator() {
+
+        final boolean[] isAscending = new boolean[totalStats()];
+
+        for (int i=0; i < isAscending.length; i++) {
+            isAscending[i] = getStat(i).statType.getOrder() == StatOrder.ASCENDING;
+        }
+
+        return new Comparator<Ranked>() {
             @Override
-            public int compare(IPlayerStats o1, IPlayerStats o2) {
+            public int compare(Ranked o1, Ranked o2) {
 
-                for (StatParam param : stats()) {
+                for (int i=0; i < isAscending.length; i++) {
 
-                    double score1 = o1.getScore(param.statType, param.trackType);
-                    double score2 = o2.getScore(param.statType, param.trackType);
+                    double score1 = o1.keys[i];
+                    double score2 = o2.keys[i];
 
                     if (score1 == score2)
                         continue;
 
-                    return param.statType.getOrder() == StatOrder.ASCENDING
+                    return isAscending[i]
                             ? Double.compare(score1, score2)
                             : Double.compare(score2, score1);
                 }
 
                 return 0;
             }
-        });
+        };
+    }
 
-        List<IPlayerStats> results = new ArrayList<>(limit);
-        if (offset > buffer.size())
-            return FutureResultAgent.successResult(results);
+    private static class Ranked {
+        final PlayerStats stats;
+        final double[] keys;
 
-        for (int i=offset; i < offset + limit && i < buffer.size(); i++) {
-            results.add(buffer.get(i));
+        Ranked(PlayerStats stats, double[] keys) {
+            this.stats = stats;
+            this.keys = keys;
         }
-
-        return FutureResultAgent.successResult(results);
     }
 }
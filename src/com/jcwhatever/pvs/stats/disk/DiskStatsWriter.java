@@ -0,0 +1,123 @@
+/*
+ * This file is part of PV-Star for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.pvs.stats.disk;
+
+import com.jcwhatever.nucleus.managed.scheduler.IScheduledTask;
+import com.jcwhatever.nucleus.managed.scheduler.Scheduler;
+import com.jcwhatever.nucleus.utils.PreCon;
+import com.jcwhatever.pvs.api.PVStarAPI;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Write-behind buffer for disk statistics.
+ *
+ * <p>Collects {@link DiskArenaStats} whose player nodes have been modified and
+ * saves each arena statistics file once per flush instead of once per score
+ * increment.</p>
+ *
+ * <p>A flush is scheduled when the first arena is marked dirty and runs after
+ * the maximum staleness period has elapsed. It can also be invoked explicitly,
+ * i.e. when a game ends or when the plugin is disabled.</p>
+ */
+public class DiskStatsWriter implements Runnable {
+
+    private final Set<DiskArenaStats> _dirty = new LinkedHashSet<>(10);
+    private final int _maxStalenessTicks;
+
+    private IScheduledTask _task;
+
+    /**
+     * Constructor.
+     *
+     * @param maxStalenessTicks  The maximum number of ticks modified statistics
+     *                           can remain unsaved.
+     */
+    public DiskStatsWriter(int maxStalenessTicks) {
+        PreCon.greaterThanZero(maxStalenessTicks);
+
+        _maxStalenessTicks = maxStalenessTicks;
+    }
+
+    /**
+     * Get the maximum number of ticks modified statistics can remain unsaved.
+     */
+    public int getMaxStalenessTicks() {
+        return _maxStalenessTicks;
+    }
+
+    /**
+     * Get the number of arena statistics waiting to be saved.
+     */
+    public int totalDirty() {
+        return _dirty.size();
+    }
+
+    /**
+     * Mark arena statistics as modified so they are saved on the next flush.
+     *
+     * @param stats  The arena statistics.
+     */
+    public void markDirty(DiskArenaStats stats) {
+        PreCon.notNull(stats);
+
+        _dirty.add(stats);
+
+        // tasks cannot be scheduled while the plugin is disabling,
+        // the final flush is invoked explicitly.
+        if (_task == null && PVStarAPI.getPlugin().isLoaded())
+            _task = Scheduler.runTaskLater(PVStarAPI.getPlugin(), _maxStalenessTicks, this);
+    }
+
+    /**
+     * Save all modified arena statistics.
+     */
+    public void flush() {
+
+        if (_task != null) {
+            _task.cancel();
+            _task = null;
+        }
+
+        if (_dirty.isEmpty())
+            return;
+
+        List<DiskArenaStats> batch = new ArrayList<>(_dirty);
+        _dirty.clear();
+
+        for (DiskArenaStats stats : batch) {
+            stats.save();
+        }
+    }
+
+    @Override
+    public void run() {
+        _task = null;
+        flush();
+    }
+}
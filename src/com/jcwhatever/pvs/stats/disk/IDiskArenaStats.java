@@ -0,0 +1,55 @@
+/*
+ * This file is part of PV-Star for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.pvs.stats.disk;
+
+import com.jcwhatever.pvs.api.stats.IArenaStats;
+import com.jcwhatever.pvs.api.stats.IPlayerStats;
+import com.jcwhatever.pvs.api.stats.StatTracking.StatTrackType;
+import com.jcwhatever.pvs.api.stats.StatType;
+import com.jcwhatever.pvs.stats.StatWindow;
+
+import java.util.List;
+
+/**
+ * Internal contract for locally stored {@link IArenaStats} that can be
+ * read in full by {@link DiskStatFilter}.
+ */
+interface IDiskArenaStats extends IArenaStats {
+
+    /**
+     * Get the statistics of every player recorded in the arena.
+     */
+    List<IPlayerStats> getPlayerStats();
+
+    /**
+     * Get the sorted score index for a statistic.
+     *
+     * @param type       The statistic type.
+     * @param trackType  The tracking type.
+     * @param window     The time window.
+     * @param bucket     The bucket within the time window.
+     */
+    StatIndex getIndex(StatType type, StatTrackType trackType, StatWindow window, int bucket);
+}
@@ -0,0 +1,247 @@
+/*
+ * This file is part of PV-Star for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.pvs.stats.disk;
+
+import com.jcwhatever.nucleus.utils.PreCon;
+import com.jcwhatever.nucleus.utils.observer.future.FutureResultAgent;
+import com.jcwhatever.nucleus.utils.observer.future.IFutureResult;
+import com.jcwhatever.pvs.api.PVStarAPI;
+import com.jcwhatever.pvs.api.stats.IArenaStats;
+import com.jcwhatever.pvs.api.stats.IPlayerStats;
+import com.jcwhatever.pvs.api.stats.StatTracking.StatTrackType;
+import com.jcwhatever.pvs.api.stats.StatType;
+import com.jcwhatever.pvs.stats.StatWindow;
+import com.jcwhatever.pvs.stats.PlayerStats;
+import org.bukkit.Bukkit;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Append-only binary journal implementation of {@link IArenaStats}.
+ *
+ * <p>All arena statistics are kept in memory. Each score change appends a fixed
+ * size record to the arena journal instead of re-serializing the statistics
+ * file. The journal is replayed on load and compacted into a sorted snapshot
+ * once it grows large relative to the number of players. The snapshot is
+ * written asynchronously so compaction does not stall score updates.</p>
+ *
+ * <p>Scores are not tracked in time windows, windowed filters have no results.</p>
+ */
+public class JournalArenaStats implements IDiskArenaStats {
+
+    private static final int MIN_COMPACT_RECORDS = 1024;
+    private static final Comparator<PlayerStats.Stat> STAT_NAME_COMPARATOR =
+            new Comparator<PlayerStats.Stat>() {
+                @Override
+                public int compare(PlayerStats.Stat o1, PlayerStats.Stat o2) {
+                    return o1.getName().compareTo(o2.getName());
+                }
+            };
+
+    private final UUID _arenaId;
+    private final StatsJournal _journal;
+    private final Map<UUID, JournalPlayerStats> _players = new HashMap<>(100);
+    private final StatIndexMap _indexes = new StatIndexMap(this);
+
+    /**
+     * Constructor.
+     *
+     * @param arenaId  The ID of the arena the stats are for.
+     * @param folder   The folder to store the arena journal in.
+     */
+    public JournalArenaStats(UUID arenaId, File folder) {
+        PreCon.notNull(arenaId);
+        PreCon.notNull(folder);
+
+        _arenaId = arenaId;
+        _journal = new StatsJournal(folder);
+
+        _journal.replay(new StatsJournal.IRecordHandler() {
+            @Override
+            public void onRecord(UUID playerId, String statName,
+                                 int records, double total, double min, double max) {
+
+                PlayerStats.Stat stat = getLocal(playerId).getStat(statName);
+                stat.records(records);
+                stat.total(total);
+                stat.min(min);
+                stat.max(max);
+            }
+        });
+
+        // fold replayed journal into the snapshot
+        if (_journal.getJournalRecords() > 0)
+            compact();
+    }
+
+    @Override
+    public UUID getArenaId() {
+        return _arenaId;
+    }
+
+    @Override
+    public IFutureResult<IPlayerStats> get(UUID playerId) {
+        PreCon.notNull(playerId);
+
+        // players without scores are not kept, the empty statistics
+        // are added by their first score.
+        IPlayerStats stats = _players.get(playerId);
+        if (stats == null)
+            stats = new JournalPlayerStats(this, playerId);
+
+        return FutureResultAgent.successResult(stats);
+    }
+
+    @Override
+    public void addScore(UUID playerId, StatType type, double amount) {
+        PreCon.notNull(playerId);
+        PreCon.notNull(type);
+
+        getLocal(playerId).addScore(type, amount);
+    }
+
+    @Override
+    public List<IPlayerStats> getPlayerStats() {
+        return new ArrayList<IPlayerStats>(_players.values());
+    }
+
+    @Override
+    public StatIndex getIndex(StatType type, StatTrackType trackType, StatWindow window, int bucket) {
+        return _indexes.get(type, trackType, window, bucket);
+    }
+
+    /**
+     * Compact the journal into a sorted snapshot.
+     *
+     * <p>The current values are captured immediately and the snapshot
+     * is written asynchronously. Does nothing if a compaction is already
+     * in progress or the plugin is disabled, in which case the journal is
+     * replayed on the next load.</p>
+     */
+    public void compact() {
+
+        // async tasks cannot be scheduled while the plugin is disabled
+        if (_journal.isCompacting() || !PVStarAPI.getPlugin().isEnabled())
+            return;
+
+        final List<UUID> playerIds = new ArrayList<>(_players.keySet());
+        Collections.sort(playerIds);
+
+        Runnable writer = _journal.beginCompact(new StatsJournal.IRecordSource() {
+            @Override
+            public void write(StatsJournal.RecordWriter writer) throws IOException {
+
+                for (UUID playerId : playerIds) {
+
+                    List<PlayerStats.Stat> stats =
+                            new ArrayList<>(_players.get(playerId).getStats());
+
+                    Collections.sort(stats, STAT_NAME_COMPARATOR);
+
+                    for (PlayerStats.Stat stat : stats) {
+                        writer.write(playerId, stat.getName(),
+                                stat.records(), stat.total(), stat.min(), stat.max());
+                    }
+                }
+            }
+        });
+
+        if (writer != null)
+            Bukkit.getScheduler().runTaskAsynchronously(PVStarAPI.getPlugin(), writer);
+    }
+
+    /**
+     * Close the journal file.
+     *
+     * <p>The file is reopened by the next appended record.</p>
+     */
+    public void close() {
+        _journal.close();
+    }
+
+    @Override
+    public int hashCode() {
+        return _arenaId.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof JournalArenaStats) {
+            JournalArenaStats other = (JournalArenaStats)obj;
+            return other._arenaId.equals(_arenaId);
+        }
+        return false;
+    }
+
+    /*
+     * Append the current values of a players statistic to the journal.
+     */
+    void append(JournalPlayerStats stats, StatType type) {
+
+        PlayerStats.Stat stat = stats.getStat(type.getName());
+
+        _journal.append(stats.getPlayerId(), _journal.getOrdinal(type.getName()),
+                stat.records(), stat.total(), stat.min(), stat.max());
+
+        _indexes.update(stats, type);
+
+        if (_journal.getJournalRecords() > Math.max(MIN_COMPACT_RECORDS, _players.size() * 4))
+            compact();
+    }
+
+    /*
+     * Add statistics returned by get before the player had scores. Returns
+     * the statistics of the player that are kept, which are not the specified
+     * statistics if scores were added to the player in the meantime.
+     */
+    JournalPlayerStats attach(JournalPlayerStats stats) {
+
+        JournalPlayerStats current = _players.get(stats.getPlayerId());
+        if (current != null)
+            return current;
+
+        _players.put(stats.getPlayerId(), stats);
+        return stats;
+    }
+
+    private JournalPlayerStats getLocal(UUID playerId) {
+
+        JournalPlayerStats stats = _players.get(playerId);
+        if (stats == null) {
+            stats = new JournalPlayerStats(this, playerId);
+            _players.put(playerId, stats);
+        }
+
+        return stats;
+    }
+}
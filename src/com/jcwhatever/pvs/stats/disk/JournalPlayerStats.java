@@ -0,0 +1,68 @@
+/*
+ * This file is part of PV-Star for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.pvs.stats.disk;
+
+import com.jcwhatever.nucleus.utils.PreCon;
+import com.jcwhatever.pvs.api.stats.IPlayerStats;
+import com.jcwhatever.pvs.api.stats.StatType;
+import com.jcwhatever.pvs.stats.PlayerStats;
+
+import java.util.UUID;
+
+/**
+ * Journal based implementation of {@link IPlayerStats}.
+ */
+public class JournalPlayerStats extends PlayerStats {
+
+    private final JournalArenaStats _arenaStats;
+
+    /**
+     * Constructor.
+     *
+     * @param arenaStats  The owning arena statistics.
+     * @param playerId    The ID of the player.
+     */
+    JournalPlayerStats(JournalArenaStats arenaStats, UUID playerId) {
+        super(playerId);
+
+        _arenaStats = arenaStats;
+    }
+
+    @Override
+    public void addScore(StatType type, double amount) {
+        PreCon.notNull(type);
+
+        // empty statistics returned by get are kept once they have a score
+        JournalPlayerStats stats = _arenaStats.attach(this);
+        if (stats != this) {
+            stats.addScore(type, amount);
+            return;
+        }
+
+        super.addScore(type, amount);
+
+        _arenaStats.append(this, type);
+    }
+}
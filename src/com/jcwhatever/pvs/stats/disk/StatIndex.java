@@ -0,0 +1,164 @@
+/*
+ * This file is part of PV-Star for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.pvs.stats.disk;
+
+import com.jcwhatever.pvs.api.stats.IPlayerStats;
+import com.jcwhatever.pvs.api.stats.StatOrder;
+import com.jcwhatever.pvs.api.stats.StatTracking.StatTrackType;
+import com.jcwhatever.pvs.api.stats.StatType;
+import com.jcwhatever.pvs.stats.StatWindow;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Sorted index of player scores for a single arena statistic, tracking type
+ * and time window bucket.
+ *
+ * <p>Scores are copied into the index so sorting does not require a statistics
+ * lookup per comparison. The index is updated incrementally as scores are
+ * added so a leaderboard page only needs to walk the requested entries.</p>
+ */
+class StatIndex {
+
+    private static final Comparator<Entry> COMPARATOR = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry o1, Entry o2) {
+            int result = Double.compare(o1.score, o2.score);
+            return result != 0
+                    ? result
+                    : o1.stats.getPlayerId().compareTo(o2.stats.getPlayerId());
+        }
+    };
+
+    private final StatType _type;
+    private final StatTrackType _trackType;
+    private final StatWindow _window;
+    private final int _bucket;
+    private final TreeSet<Entry> _sorted = new TreeSet<>(COMPARATOR);
+    private final Map<UUID, Entry> _entries;
+
+    /**
+     * Constructor.
+     *
+     * @param type       The statistic type.
+     * @param trackType  The statistic tracking type.
+     * @param window     The time window.
+     * @param bucket     The bucket within the time window.
+     * @param players    The player statistics to build the index from.
+     */
+    StatIndex(StatType type, StatTrackType trackType, StatWindow window, int bucket,
+              Collection<IPlayerStats> players) {
+        _type = type;
+        _trackType = trackType;
+        _window = window;
+        _bucket = bucket;
+        _entries = new HashMap<>(players.size() + 10);
+
+        for (IPlayerStats stats : players) {
+            update(stats);
+        }
+    }
+
+    /**
+     * Get the time window bucket the index is for.
+     */
+    int getBucket() {
+        return _bucket;
+    }
+
+    /**
+     * Get the number of players in the index.
+     */
+    int size() {
+        return _entries.size();
+    }
+
+    /**
+     * Update the indexed score of a player.
+     *
+     * @param stats  The players statistics.
+     */
+    void update(IPlayerStats stats) {
+
+        Entry entry = _entries.get(stats.getPlayerId());
+        if (entry == null) {
+            entry = new Entry(stats);
+            _entries.put(stats.getPlayerId(), entry);
+        }
+        else {
+            _sorted.remove(entry);
+        }
+
+        entry.score = StatWindow.getScore(stats, _type, _trackType, _window, _bucket);
+        _sorted.add(entry);
+    }
+
+    /**
+     * Get a page of player statistics in leaderboard order.
+     *
+     * @param offset  The number of ranked players to skip.
+     * @param limit   The maximum number of players to return.
+     */
+    List<IPlayerStats> getPage(int offset, int limit) {
+
+        List<IPlayerStats> results = new ArrayList<>(Math.min(limit, _entries.size()));
+        if (offset >= _entries.size())
+            return results;
+
+        NavigableSet<Entry> ordered = _type.getOrder() == StatOrder.ASCENDING
+                ? _sorted
+                : _sorted.descendingSet();
+
+        Iterator<Entry> iterator = ordered.iterator();
+
+        for (int i = 0; i < offset; i++) {
+            iterator.next();
+        }
+
+        while (iterator.hasNext() && results.size() < limit) {
+            results.add(iterator.next().stats);
+        }
+
+        return results;
+    }
+
+    private static class Entry {
+        final IPlayerStats stats;
+        double score;
+
+        Entry(IPlayerStats stats) {
+            this.stats = stats;
+        }
+    }
+}
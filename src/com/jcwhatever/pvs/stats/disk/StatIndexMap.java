@@ -0,0 +1,104 @@
+/*
+ * This file is part of PV-Star for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.pvs.stats.disk;
+
+import com.jcwhatever.pvs.api.stats.IPlayerStats;
+import com.jcwhatever.pvs.api.stats.StatTracking.StatTrackType;
+import com.jcwhatever.pvs.api.stats.StatType;
+import com.jcwhatever.pvs.stats.StatWindow;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lazily built {@link StatIndex} collection for the statistics of one arena.
+ *
+ * <p>Indexes are keyed by statistic name, tracking type and time window. An index
+ * is built the first time it is requested and kept up to date from then on. One
+ * index is kept per retained window bucket, so alternating between the current
+ * and previous bucket does not rebuild either index. An index is only rebuilt
+ * when its ring buffer slot is requested for a newer bucket.</p>
+ */
+class StatIndexMap {
+
+    private final IDiskArenaStats _arenaStats;
+    private final Map<String, StatIndex[]> _indexes = new HashMap<>(10);
+
+    /**
+     * Constructor.
+     *
+     * @param arenaStats  The arena statistics to index.
+     */
+    StatIndexMap(IDiskArenaStats arenaStats) {
+        _arenaStats = arenaStats;
+    }
+
+    /**
+     * Get the index for a statistic, tracking type and time window.
+     *
+     * @param type       The statistic type.
+     * @param trackType  The tracking type.
+     * @param window     The time window.
+     * @param bucket     The bucket within the time window.
+     */
+    StatIndex get(StatType type, StatTrackType trackType, StatWindow window, int bucket) {
+
+        StatIndex[] indexes = _indexes.get(type.getName());
+        if (indexes == null) {
+            indexes = new StatIndex[StatTrackType.values().length *
+                    StatWindow.values().length * StatWindow.RETAINED_BUCKETS];
+            _indexes.put(type.getName(), indexes);
+        }
+
+        int slot = (window.ordinal() * StatWindow.RETAINED_BUCKETS + StatWindow.getSlot(bucket))
+                * StatTrackType.values().length + trackType.ordinal();
+
+        StatIndex index = indexes[slot];
+        if (index == null || index.getBucket() != bucket) {
+            index = new StatIndex(type, trackType, window, bucket, _arenaStats.getPlayerStats());
+            indexes[slot] = index;
+        }
+
+        return index;
+    }
+
+    /**
+     * Update all built indexes of a statistic after a players score changes.
+     *
+     * @param stats  The players statistics.
+     * @param type   The statistic type whose score changed.
+     */
+    void update(IPlayerStats stats, StatType type) {
+
+        StatIndex[] indexes = _indexes.get(type.getName());
+        if (indexes == null)
+            return;
+
+        for (StatIndex index : indexes) {
+            if (index != null)
+                index.update(stats);
+        }
+    }
+}
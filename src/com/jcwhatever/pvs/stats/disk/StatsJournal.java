@@ -0,0 +1,442 @@
+/*
+ * This file is part of PV-Star for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.pvs.stats.disk;
+
+import com.jcwhatever.nucleus.utils.PreCon;
+import com.jcwhatever.pvs.api.utils.Msg;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Append-only binary statistics journal.
+ *
+ * <p>Each record has a fixed size and stores the current values of one
+ * statistic for one player. Records are absolute values rather than deltas,
+ * so replaying the snapshot followed by the journal yields the latest values
+ * and compaction only needs to write one record per player statistic.</p>
+ *
+ * <p>Statistic names are mapped to ordinals using a small append-only name
+ * file so the ordinals remain stable regardless of the order statistic
+ * types are registered in.</p>
+ *
+ * <p>Compaction is split in two. {@link #beginCompact} captures the current
+ * records in memory and rolls the journal over to a numbered file, which is
+ * cheap enough for the server thread. The returned task writes the snapshot
+ * and deletes the rolled journals it covers, and can run on another thread.
+ * Replay reads the snapshot, the rolled journals in order and then the current
+ * journal. The last record of a statistic in a rolled journal always equals its
+ * value in a snapshot that covers the journal, so replay yields the latest values
+ * no matter where compaction was interrupted.</p>
+ */
+class StatsJournal {
+
+    /**
+     * The size of a single record in bytes.
+     *
+     * <p>playerId (2 longs), stat ordinal (int), records (int),
+     * total, min, max (3 doubles)</p>
+     */
+    static final int RECORD_SIZE = 8 + 8 + 4 + 4 + 8 + 8 + 8;
+
+    private static final Pattern ROLLED_JOURNAL = Pattern.compile("journal-(\\d+)\\.bin");
+
+    private final File _folder;
+    private final File _journalFile;
+    private final File _snapshotFile;
+    private final File _namesFile;
+    private final List<String> _names = new ArrayList<>(15);
+    private final ByteBuffer _buffer = ByteBuffer.allocate(RECORD_SIZE);
+
+    private FileOutputStream _journalStream;
+    private int _journalRecords;
+    private int _nextGeneration;
+    private volatile boolean _isCompacting;
+
+    /**
+     * Constructor.
+     *
+     * @param folder  The folder the journal files are stored in.
+     */
+    StatsJournal(File folder) {
+        PreCon.notNull(folder);
+
+        _folder = folder;
+        _journalFile = new File(folder, "journal.bin");
+        _snapshotFile = new File(folder, "snapshot.bin");
+        _namesFile = new File(folder, "stat-names.txt");
+    }
+
+    /**
+     * Get the number of records appended to the journal since the
+     * last compaction.
+     */
+    int getJournalRecords() {
+        return _journalRecords;
+    }
+
+    /**
+     * Determine if a snapshot is being written.
+     */
+    boolean isCompacting() {
+        return _isCompacting;
+    }
+
+    /**
+     * Get a statistic name by ordinal.
+     *
+     * @return  The name or null if the ordinal is not defined.
+     */
+    String getName(int ordinal) {
+        return ordinal >= 0 && ordinal < _names.size()
+                ? _names.get(ordinal)
+                : null;
+    }
+
+    /**
+     * Get the ordinal of a statistic name, defining a new ordinal if
+     * the name has not been recorded before.
+     *
+     * @param name  The statistic name.
+     */
+    int getOrdinal(String name) {
+
+        int ordinal = _names.indexOf(name);
+        if (ordinal != -1)
+            return ordinal;
+
+        _names.add(name);
+
+        try {
+            Files.write(_namesFile.toPath(), _names, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            e.printStackTrace();
+            Msg.warning("Failed to save statistics journal names: {0}", _namesFile.getAbsolutePath());
+        }
+
+        return _names.size() - 1;
+    }
+
+    /**
+     * Replay the snapshot and journal into a record handler.
+     *
+     * @param handler  The handler that receives each record in order.
+     */
+    void replay(IRecordHandler handler) {
+        PreCon.notNull(handler);
+
+        if (!_folder.exists() && !_folder.mkdirs()) {
+            Msg.severe("Failed to create statistics journal folder: {0}", _folder.getAbsolutePath());
+            return;
+        }
+
+        try {
+            if (_namesFile.exists()) {
+                _names.clear();
+                _names.addAll(Files.readAllLines(_namesFile.toPath(), StandardCharsets.UTF_8));
+            }
+
+            read(_snapshotFile, handler);
+
+            // journals rolled over by a compaction that did not finish
+            _journalRecords = 0;
+            for (int generation : getRolledGenerations()) {
+                _journalRecords += read(getRolledFile(generation), handler);
+                _nextGeneration = generation + 1;
+            }
+
+            _journalRecords += read(_journalFile, handler);
+
+        } catch (IOException e) {
+            e.printStackTrace();
+            Msg.severe("Failed to read statistics journal: {0}", _folder.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Append a record to the journal.
+     */
+    void append(UUID playerId, int ordinal, int records, double total, double min, double max) {
+
+        _buffer.clear();
+        _buffer.putLong(playerId.getMostSignificantBits());
+        _buffer.putLong(playerId.getLeastSignificantBits());
+        _buffer.putInt(ordinal);
+        _buffer.putInt(records);
+        _buffer.putDouble(total);
+        _buffer.putDouble(min);
+        _buffer.putDouble(max);
+
+        try {
+            if (_journalStream == null)
+                _journalStream = new FileOutputStream(_journalFile, true);
+
+            _journalStream.write(_buffer.array(), 0, RECORD_SIZE);
+            _journalRecords++;
+
+        } catch (IOException e) {
+            e.printStackTrace();
+            Msg.severe("Failed to append to statistics journal: {0}", _journalFile.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Capture all current records and roll the journal over so a new snapshot
+     * can be written without blocking appends.
+     *
+     * <p>Must be invoked on the thread that appends records. The returned task
+     * performs the file writes and may be run on any thread. Only one compaction
+     * can be in progress at a time.</p>
+     *
+     * @param source  Writes the current records, sorted, to the snapshot.
+     *
+     * @return  The task that writes the snapshot or null if a compaction is
+     * already in progress or the records could not be captured.
+     */
+    Runnable beginCompact(IRecordSource source) {
+        PreCon.notNull(source);
+
+        if (_isCompacting)
+            return null;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+                Math.max(RECORD_SIZE, _journalRecords * RECORD_SIZE));
+
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+
+            source.write(new RecordWriter(output));
+
+        } catch (IOException e) {
+            e.printStackTrace();
+            Msg.severe("Failed to capture statistics snapshot: {0}", _folder.getAbsolutePath());
+            return null;
+        }
+
+        close();
+
+        final int generation = _nextGeneration;
+
+        if (_journalFile.exists()) {
+            try {
+                Files.move(_journalFile.toPath(), getRolledFile(generation).toPath());
+                _nextGeneration++;
+            } catch (IOException e) {
+                e.printStackTrace();
+                Msg.severe("Failed to roll over statistics journal: {0}", _journalFile.getAbsolutePath());
+                return null;
+            }
+        }
+
+        _journalRecords = 0;
+        _isCompacting = true;
+
+        final byte[] snapshot = bytes.toByteArray();
+
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    writeSnapshot(snapshot, generation);
+                }
+                finally {
+                    _isCompacting = false;
+                }
+            }
+        };
+    }
+
+    /*
+     * Write a captured snapshot to a temporary file, move it into place and
+     * delete the rolled journals it covers. A failure at any point leaves a
+     * replayable state.
+     */
+    private void writeSnapshot(byte[] snapshot, int lastGeneration) {
+
+        File tempFile = new File(_folder, "snapshot.tmp");
+
+        try (FileOutputStream output = new FileOutputStream(tempFile)) {
+
+            output.write(snapshot);
+
+        } catch (IOException e) {
+            e.printStackTrace();
+            Msg.severe("Failed to write statistics snapshot: {0}", tempFile.getAbsolutePath());
+            return;
+        }
+
+        try {
+            Files.move(tempFile.toPath(), _snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            e.printStackTrace();
+            Msg.severe("Failed to compact statistics journal: {0}", _folder.getAbsolutePath());
+            return;
+        }
+
+        for (int generation : getRolledGenerations()) {
+
+            if (generation > lastGeneration)
+                break;
+
+            File rolled = getRolledFile(generation);
+            if (!rolled.delete())
+                Msg.warning("Failed to delete compacted statistics journal: {0}", rolled.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Close the journal output stream.
+     */
+    void close() {
+
+        if (_journalStream == null)
+            return;
+
+        try {
+            _journalStream.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        _journalStream = null;
+    }
+
+    private File getRolledFile(int generation) {
+        return new File(_folder, "journal-" + generation + ".bin");
+    }
+
+    // get the generations of rolled journal files, in ascending order.
+    private List<Integer> getRolledGenerations() {
+
+        String[] fileNames = _folder.list();
+        if (fileNames == null)
+            return Collections.emptyList();
+
+        List<Integer> generations = new ArrayList<>(fileNames.length);
+
+        for (String fileName : fileNames) {
+            Matcher matcher = ROLLED_JOURNAL.matcher(fileName);
+            if (matcher.matches())
+                generations.add(Integer.parseInt(matcher.group(1)));
+        }
+
+        Collections.sort(generations);
+        return generations;
+    }
+
+    // read records from a file, returns the number of records read.
+    private int read(File file, IRecordHandler handler) throws IOException {
+
+        if (!file.exists())
+            return 0;
+
+        int totalRead = 0;
+
+        // ignore a partially written trailing record
+        long count = file.length() / RECORD_SIZE;
+
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+
+            for (long i = 0; i < count; i++) {
+
+                UUID playerId = new UUID(input.readLong(), input.readLong());
+                int ordinal = input.readInt();
+                int records = input.readInt();
+                double total = input.readDouble();
+                double min = input.readDouble();
+                double max = input.readDouble();
+
+                String name = getName(ordinal);
+                if (name == null)
+                    continue;
+
+                handler.onRecord(playerId, name, records, total, min, max);
+                totalRead++;
+            }
+        } catch (EOFException ignore) {
+            // finished
+        }
+
+        return totalRead;
+    }
+
+    /**
+     * Receives records read from the journal.
+     */
+    interface IRecordHandler {
+
+        void onRecord(UUID playerId, String statName,
+                      int records, double total, double min, double max);
+    }
+
+    /**
+     * Provides records to write to a snapshot.
+     */
+    interface IRecordSource {
+
+        void write(RecordWriter writer) throws IOException;
+    }
+
+    /**
+     * Writes records to a snapshot.
+     */
+    class RecordWriter {
+
+        private final DataOutputStream _output;
+
+        RecordWriter(DataOutputStream output) {
+            _output = output;
+        }
+
+        void write(UUID playerId, String statName,
+                   int records, double total, double min, double max) throws IOException {
+
+            _output.writeLong(playerId.getMostSignificantBits());
+            _output.writeLong(playerId.getLeastSignificantBits());
+            _output.writeInt(getOrdinal(statName));
+            _output.writeInt(records);
+            _output.writeDouble(total);
+            _output.writeDouble(min);
+            _output.writeDouble(max);
+        }
+    }
+}
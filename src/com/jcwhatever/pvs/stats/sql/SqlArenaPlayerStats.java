@@ -28,9 +28,9 @@ import com.jcwhatever.nucleus.utils.PreCon;
 import com.jcwhatever.pvs.api.stats.IPlayerStats;
 import com.jcwhatever.pvs.api.stats.StatTracking;
 import com.jcwhatever.pvs.api.stats.StatType;
+import com.jcwhatever.pvs.stats.StatOrdinals;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.UUID;
 
 /**
@@ -40,7 +40,9 @@ public class SqlArenaPlayerStats implements IPlayerStats {
 
     private final SqlArenaStats _arenaStats;
     private final UUID _playerId;
-    private final Map<String, SqlStat> _stats = new HashMap<>(15);
+
+    // statistic records indexed by statistic ordinal
+    private SqlStat[] _stats = new SqlStat[0];
 
     /**
      * Constructor.
@@ -64,7 +66,8 @@ public class SqlArenaPlayerStats implements IPlayerStats {
     @Override
     public double getScore(StatType type, StatTracking.StatTrackType trackingType) {
 
-        SqlStat stat = _stats.get(type.getName());
+        int ordinal = StatOrdinals.get(type);
+        SqlStat stat = ordinal < _stats.length ? _stats[ordinal] : null;
         if (stat == null)
             return 0;
 
@@ -92,11 +95,24 @@ public class SqlArenaPlayerStats implements IPlayerStats {
         return false;
     }
 
+    /*
+     * Remove all statistic values before they are reloaded.
+     */
+    void clear() {
+        _stats = new SqlStat[0];
+    }
+
     SqlStat getStat(String name) {
-        SqlStat stat = _stats.get(name);
+
+        int ordinal = StatOrdinals.get(name);
+
+        if (ordinal >= _stats.length)
+            _stats = Arrays.copyOf(_stats, Math.max(ordinal + 1, StatOrdinals.size()));
+
+        SqlStat stat = _stats[ordinal];
         if (stat == null) {
             stat = new SqlStat(name, 0, 0, 0, 0);
-            _stats.put(name, stat);
+            _stats[ordinal] = stat;
         }
 
         return stat;
@@ -39,11 +39,14 @@ import com.jcwhatever.pvs.api.PVStarAPI;
 import com.jcwhatever.pvs.api.stats.IArenaStats;
 import com.jcwhatever.pvs.api.stats.IPlayerStats;
 import com.jcwhatever.pvs.api.stats.StatType;
+import com.jcwhatever.pvs.stats.StatWindow;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
 import javax.annotation.Nullable;
 import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -53,7 +56,9 @@ import java.util.UUID;
 public class SqlArenaStats implements IArenaStats {
 
     private final UUID _arenaId;
+    private final SqlDataTables _tables;
     private final ISqlTable _table;
+    private final SqlStatsWriter _writer;
 
     @SuppressWarnings("MismatchedQueryAndUpdateOfCollection")
     private final Map<UUID, SqlArenaPlayerStats> _onlineCache = new PlayerMap<SqlArenaPlayerStats>(
@@ -62,18 +67,30 @@ public class SqlArenaStats implements IArenaStats {
     private final Map<UUID, SqlArenaPlayerStats> _weakCache =
             new MapMaker().weakValues().concurrencyLevel(1).initialCapacity(25).makeMap();
 
+    // lookups waiting for database results, shared by concurrent requests
+    private final Map<UUID, FutureResultAgent<IPlayerStats>> _inFlight = new HashMap<>(10);
+
+    private int _collapsedRequests;
+
     /**
      * Constructor.
      *
+     * <p>The optional time window table is resolved from the data tables on each
+     * write since it may finish loading after the statistics table.</p>
+     *
      * @param arenaId  The ID of the arena.
-     * @param table    The table that stores all statistics.
+     * @param tables   The data tables. The statistics table must be loaded.
+     * @param writer   The write buffer used to batch score changes.
      */
-    public SqlArenaStats(UUID arenaId, ISqlTable table) {
+    public SqlArenaStats(UUID arenaId, SqlDataTables tables, SqlStatsWriter writer) {
         PreCon.notNull(arenaId);
-        PreCon.notNull(table);
+        PreCon.notNull(tables);
+        PreCon.notNull(writer);
 
         _arenaId = arenaId;
-        _table = table;
+        _tables = tables;
+        _table = tables.getTable();
+        _writer = writer;
     }
 
     @Override
@@ -81,20 +98,38 @@ public class SqlArenaStats implements IArenaStats {
         return _arenaId;
     }
 
+    /**
+     * Get the number of {@link #get} requests that were served by
+     * a database lookup already in progress for the same player.
+     */
+    public int getCollapsedRequests() {
+        return _collapsedRequests;
+    }
+
     @Override
     public IFutureResult<IPlayerStats> get(final UUID playerId) {
         PreCon.notNull(playerId);
 
-        final FutureResultAgent<IPlayerStats> agent = new FutureResultAgent<>();
-
         SqlArenaPlayerStats stats = _weakCache.get(playerId);
         if (stats != null) {
-            return agent.success(stats);
+            return new FutureResultAgent<IPlayerStats>().success(stats);
+        }
+
+        FutureResultAgent<IPlayerStats> inFlight = _inFlight.get(playerId);
+        if (inFlight != null) {
+            _collapsedRequests++;
+            return inFlight.getFuture();
         }
 
+        final FutureResultAgent<IPlayerStats> agent = new FutureResultAgent<>();
+        _inFlight.put(playerId, agent);
+
+        // flushes sent before the lookup are included in its results
+        final int sequence = _writer.getSequence();
+
         ISqlTransaction transaction = _table.getDatabase().createTransaction();
 
-        getDbValues(playerId, transaction);
+        getDbValues(playerId, sequence, transaction);
 
         transaction.execute()
                 .onSuccess(new SqlAutoCloseSubscriber() {
@@ -103,6 +138,8 @@ public class SqlArenaStats implements IArenaStats {
 
                         assert result != null;
 
+                        _inFlight.remove(playerId);
+
                         SqlArenaPlayerStats stats = _weakCache.get(playerId);
                         if (stats != null) {
                             agent.success(stats);
@@ -132,6 +169,8 @@ public class SqlArenaStats implements IArenaStats {
                             return;
                         }
 
+                        _writer.applyPending(SqlArenaStats.this, playerId, sequence, stats);
+
                         insertIntoCache(stats, false);
                         agent.success(stats);
                     }
@@ -139,6 +178,7 @@ public class SqlArenaStats implements IArenaStats {
                 .onError(new SqlAutoCloseSubscriber() {
                     @Override
                     public void onResult(@Nullable ISqlResult result, @Nullable String message) {
+                        _inFlight.remove(playerId);
                         agent.error(null, message);
                     }
                 });
@@ -151,34 +191,13 @@ public class SqlArenaStats implements IArenaStats {
         PreCon.notNull(playerId);
         PreCon.notNull(type);
 
-        ISqlTransaction transaction = _table.getDatabase().createTransaction();
-
-        _table.insertRow("arenaId", "playerId", "statName", "records", "total", "max", "min")
-                .values(_arenaId, playerId, type.getName(), 1, amount, amount, amount)
-                .ifExists()
-                .set("records").add(1)
-                .set("total").add(amount)
-                .addToTransaction(transaction);
-
-        _table.updateRow()
-                .set("max").value(amount)
-                .where("arenaId").isEqualTo(_arenaId)
-                .and("playerId").isEqualTo(playerId)
-                .and("statName").isEqualTo(type.getName())
-                .and("max").isLessThan(amount)
-                .addToTransaction(transaction);
+        _writer.add(this, playerId, type.getName(), amount);
 
-        _table.updateRow()
-                .set("min").value(amount)
-                .where("arenaId").isEqualTo(_arenaId)
-                .and("playerId").isEqualTo(playerId)
-                .and("statName").isEqualTo(type.getName())
-                .and("min").isGreaterThan(amount)
-                .addToTransaction(transaction);
-
-        getDbValues(playerId, transaction);
-
-        transaction.execute();
+        // keep cached values current until the buffered score is written
+        // and the values are reloaded from the database.
+        SqlArenaPlayerStats stats = _weakCache.get(playerId);
+        if (stats != null)
+            stats.getStat(type.getName()).add(amount);
     }
 
     @Override
@@ -195,7 +214,124 @@ public class SqlArenaStats implements IArenaStats {
         return false;
     }
 
-    private void getDbValues(final UUID playerId, ISqlTransaction transaction) {
+    /*
+     * Get the table that stores all statistics.
+     */
+    ISqlTable getTable() {
+        return _table;
+    }
+
+    /*
+     * Get the time window table or null if windows are not tracked.
+     */
+    @Nullable
+    ISqlTable getWindowTable() {
+        return _tables.getWindowTable();
+    }
+
+    /*
+     * Add statements to a transaction that write merged scores, keyed by
+     * player ID, and reload the values of each player. Scores are written
+     * to the window buckets of the day they were recorded on.
+     */
+    void writeScores(Map<UUID, List<SqlStat>> scores, int sequence, ISqlTransaction transaction) {
+
+        ISqlTable windowTable = _tables.getWindowTable();
+
+        for (Map.Entry<UUID, List<SqlStat>> entry : scores.entrySet()) {
+
+            UUID playerId = entry.getKey();
+
+            for (SqlStat stat : entry.getValue()) {
+
+                addScore(_table, playerId, stat, transaction);
+
+                if (windowTable != null) {
+                    for (StatWindow window : StatWindow.values()) {
+                        if (window != StatWindow.ALL_TIME)
+                            addWindowScore(windowTable, playerId, stat, window,
+                                    window.getDayBucket(stat.day), transaction);
+                    }
+                }
+            }
+
+            getDbValues(playerId, sequence, transaction);
+        }
+    }
+
+    /*
+     * Add statements to a transaction that add merged scores to a statistics table.
+     */
+    private void addScore(ISqlTable table, UUID playerId, SqlStat stat,
+                          ISqlTransaction transaction) {
+
+        table.insertRow("arenaId", "playerId", "statName", "records", "total", "max", "min")
+                .values(_arenaId, playerId, stat.name, stat.records, stat.total, stat.max, stat.min)
+                .ifExists()
+                .set("records").add(stat.records)
+                .set("total").add(stat.total)
+                .addToTransaction(transaction);
+
+        table.updateRow()
+                .set("max").value(stat.max)
+                .where("arenaId").isEqualTo(_arenaId)
+                .and("playerId").isEqualTo(playerId)
+                .and("statName").isEqualTo(stat.name)
+                .and("max").isLessThan(stat.max)
+                .addToTransaction(transaction);
+
+        table.updateRow()
+                .set("min").value(stat.min)
+                .where("arenaId").isEqualTo(_arenaId)
+                .and("playerId").isEqualTo(playerId)
+                .and("statName").isEqualTo(stat.name)
+                .and("min").isGreaterThan(stat.min)
+                .addToTransaction(transaction);
+    }
+
+    /*
+     * Add statements to a transaction that add merged scores to a time window bucket.
+     */
+    private void addWindowScore(ISqlTable windowTable, UUID playerId, SqlStat stat,
+                                StatWindow window, int bucket, ISqlTransaction transaction) {
+
+        windowTable.insertRow("statName", "arenaId", "statWindow", "bucket", "playerId",
+                "records", "total", "max", "min")
+                .values(stat.name, _arenaId, window.name(), bucket, playerId,
+                        stat.records, stat.total, stat.max, stat.min)
+                .ifExists()
+                .set("records").add(stat.records)
+                .set("total").add(stat.total)
+                .addToTransaction(transaction);
+
+        windowTable.updateRow()
+                .set("max").value(stat.max)
+                .where("statName").isEqualTo(stat.name)
+                .and("arenaId").isEqualTo(_arenaId)
+                .and("statWindow").isEqualTo(window.name())
+                .and("bucket").isEqualTo(bucket)
+                .and("playerId").isEqualTo(playerId)
+                .and("max").isLessThan(stat.max)
+                .addToTransaction(transaction);
+
+        windowTable.updateRow()
+                .set("min").value(stat.min)
+                .where("statName").isEqualTo(stat.name)
+                .and("arenaId").isEqualTo(_arenaId)
+                .and("statWindow").isEqualTo(window.name())
+                .and("bucket").isEqualTo(bucket)
+                .and("playerId").isEqualTo(playerId)
+                .and("min").isGreaterThan(stat.min)
+                .addToTransaction(transaction);
+    }
+
+    /*
+     * Add a statement to a transaction that reloads the cached values of an
+     * online player. Scores buffered after the flush with the specified sequence
+     * number are added back to the reloaded values.
+     */
+    private void getDbValues(final UUID playerId, final int sequence,
+                             ISqlTransaction transaction) {
 
         _table.selectRows("statName", "records", "total", "max", "min")
                 .where("arenaId").isEqualTo(_arenaId)
@@ -221,6 +357,10 @@ public class SqlArenaStats implements IArenaStats {
                             _onlineCache.put(playerId, stats);
                             _weakCache.put(playerId, stats);
                         }
+                        else {
+                            // cached values include buffered scores
+                            stats.clear();
+                        }
 
                         try {
 
@@ -236,10 +376,63 @@ public class SqlArenaStats implements IArenaStats {
                         } catch (SQLException e) {
                             e.printStackTrace();
                         }
+
+                        _writer.applyPending(SqlArenaStats.this, playerId, sequence, stats);
                     }
                 });
     }
 
+    /*
+     * Get the sequence number of the last write buffer flush. Reads started
+     * after the flush include its scores.
+     */
+    int getWriteSequence() {
+        return _writer.getSequence();
+    }
+
+    /*
+     * Mark a players statistics as being prefetched so concurrent lookups
+     * wait for the prefetch results. Returns false if the statistics are
+     * already cached or a lookup is in progress.
+     */
+    boolean beginPrefetch(UUID playerId) {
+
+        if (_weakCache.containsKey(playerId) || _inFlight.containsKey(playerId))
+            return false;
+
+        _inFlight.put(playerId, new FutureResultAgent<IPlayerStats>());
+        return true;
+    }
+
+    /*
+     * Cache prefetched statistics and complete lookups waiting for them.
+     * Null statistics indicate the prefetch failed. The sequence number is
+     * the write sequence when the prefetch query was started.
+     */
+    void endPrefetch(UUID playerId, @Nullable SqlArenaPlayerStats stats, int sequence) {
+
+        FutureResultAgent<IPlayerStats> agent = _inFlight.remove(playerId);
+
+        if (stats == null) {
+            if (agent != null)
+                agent.error(null, "Failed to prefetch statistics from database.");
+            return;
+        }
+
+        // values reloaded after a write are newer
+        SqlArenaPlayerStats cached = _weakCache.get(playerId);
+        if (cached != null) {
+            stats = cached;
+        }
+        else {
+            _writer.applyPending(this, playerId, sequence, stats);
+            insertIntoCache(stats, true);
+        }
+
+        if (agent != null)
+            agent.success(stats);
+    }
+
     @Nullable
     SqlArenaPlayerStats getCached(UUID playerId) {
         return _weakCache.get(playerId);
@@ -31,30 +31,57 @@ import com.jcwhatever.nucleus.providers.sql.ISqlResult;
 import com.jcwhatever.nucleus.providers.sql.ISqlTable;
 import com.jcwhatever.nucleus.providers.sql.ISqlTableDefinition;
 import com.jcwhatever.nucleus.providers.sql.SqlDbType;
+import com.jcwhatever.nucleus.providers.sql.observer.SqlAutoCloseSubscriber;
+import com.jcwhatever.nucleus.providers.sql.statement.ISqlTransaction;
 import com.jcwhatever.nucleus.utils.PreCon;
 import com.jcwhatever.nucleus.utils.observer.future.FutureResultSubscriber;
 import com.jcwhatever.nucleus.utils.observer.future.Result;
 import com.jcwhatever.pvs.api.PVStarAPI;
 import com.jcwhatever.pvs.api.arena.IArena;
 import com.jcwhatever.pvs.api.events.ArenaDisposeEvent;
+import com.jcwhatever.pvs.api.stats.StatTracking.StatTrackType;
 import com.jcwhatever.pvs.api.utils.Msg;
 import org.bukkit.plugin.Plugin;
 
 import javax.annotation.Nullable;
+import java.util.UUID;
 
 /**
- * Manages Sql statistics data table.
+ * Manages Sql statistics data tables.
+ *
+ * <p>Optionally manages materialized ranking tables, one per {@link StatTrackType},
+ * whose primary key is ordered (statName, arenaId, value, playerId). The rows of one
+ * statistic in one arena are contiguous and ordered by value, so a leaderboard page
+ * is read with a range scan of the primary key instead of sorting a temporary table.
+ * The table builder has no secondary index API, the value is part of the key.</p>
+ *
+ * <p>Since the value is part of the key, ranking rows are not updated when scores are
+ * written. Instead the rows of an arena are rebuilt from the statistics table with
+ * {@link #refreshRanks}. All arenas are rebuilt with {@link #backfillRanks} once the
+ * arenas are loaded. Until then leaderboards are read from the statistics table.</p>
+ *
+ * <p>Optionally manages a time window table that stores scores per window bucket.
+ * Rows of buckets that are no longer retained are pruned by {@link SqlStatsWriter}.</p>
  */
 public class SqlDataTables implements IEventListener {
 
     private ISqlTable _dataTable;
+    private ISqlTable _windowTable;
+
+    // ranking tables indexed by tracking type ordinal, null if not used
+    private final ISqlTable[] _rankTables;
+    private int _rankTablesLoaded;
+    private boolean _isRankBackfillStarted;
+    private boolean _isRankTableReady;
 
     /**
      * Constructor.
      *
-     * @param database  The database the table is in or will be created in.
+     * @param database      The database the table is in or will be created in.
+     * @param useRankTable    True to create and maintain the ranking tables.
+     * @param useWindowTable  True to create and maintain the time window table.
      */
-    public SqlDataTables(ISqlDatabase database) {
+    public SqlDataTables(ISqlDatabase database, boolean useRankTable, boolean useWindowTable) {
         PreCon.notNull(database);
 
         ISqlTableDefinition definition = database.createTableBuilder()
@@ -78,6 +105,7 @@ public class SqlDataTables implements IEventListener {
                     @Override
                     public void onSuccess(Result<ISqlTable> result) {
                         _dataTable = result.getResult();
+                        backfillRanks();
                     }
                     @Override
                     public void onError(Result<ISqlTable> result) {
@@ -85,6 +113,26 @@ public class SqlDataTables implements IEventListener {
                         Msg.warning(result.getMessage());
                     }
                 });
+
+        _rankTables = useRankTable
+                ? new ISqlTable[StatTrackType.values().length]
+                : null;
+
+        if (useRankTable) {
+            for (StatTrackType trackType : StatTrackType.values()) {
+                loadRankTable(database, trackType);
+            }
+        }
+
+        if (useWindowTable)
+            loadWindowTable(database);
+    }
+
+    /**
+     * Determine if the statistics table is loaded.
+     */
+    public boolean isLoaded() {
+        return _dataTable != null;
     }
 
     @Nullable
@@ -96,11 +144,199 @@ public class SqlDataTables implements IEventListener {
         return _dataTable;
     }
 
+    /**
+     * Get the materialized ranking table of a tracking type.
+     *
+     * @param trackType  The tracking type.
+     *
+     * @return  The table or null if ranking tables are not enabled or their rows
+     * have not been rebuilt from the statistics table yet.
+     */
+    @Nullable
+    public ISqlTable getRankTable(StatTrackType trackType) {
+        PreCon.notNull(trackType);
+
+        return _isRankTableReady ? _rankTables[trackType.ordinal()] : null;
+    }
+
+    /**
+     * Determine if the ranking table rows have been rebuilt from the statistics
+     * table and the tables can be used to read leaderboards.
+     */
+    public boolean isRankTableReady() {
+        return _isRankTableReady;
+    }
+
+    /**
+     * Get the time window table.
+     *
+     * @return  The table or null if the window table is not enabled or not loaded yet.
+     */
+    @Nullable
+    public ISqlTable getWindowTable() {
+        return _dataTable != null ? _windowTable : null;
+    }
+
+    /**
+     * Rebuild the ranking table rows of an arena from the statistics table.
+     *
+     * <p>Ignored until the rows of all arenas are rebuilt by {@link #backfillRanks}.</p>
+     *
+     * @param arenaId  The ID of the arena.
+     */
+    public void refreshRanks(UUID arenaId) {
+        PreCon.notNull(arenaId);
+
+        if (!_isRankTableReady)
+            return;
+
+        ISqlTransaction transaction = _dataTable.getDatabase().createTransaction();
+
+        addRefreshRanks(arenaId, transaction);
+
+        transaction.execute();
+    }
+
     @Override
     public Plugin getPlugin() {
         return PVStarAPI.getPlugin();
     }
 
+    /**
+     * Rebuild the ranking table rows of all arenas from the statistics table
+     * so the ranking tables can be used to read leaderboards.
+     *
+     * <p>Invoked when the tables are loaded and when the plugin is loaded.
+     * Runs once, after the tables are loaded and the arenas are available.</p>
+     */
+    public void backfillRanks() {
+
+        if (_isRankBackfillStarted || _dataTable == null || _rankTables == null ||
+                _rankTablesLoaded < _rankTables.length) {
+            return;
+        }
+
+        // arenas are not available until the plugin is loaded
+        if (!PVStarAPI.getPlugin().isLoaded())
+            return;
+
+        ISqlTransaction transaction = _dataTable.getDatabase().createTransaction();
+
+        for (IArena arena : PVStarAPI.getArenaManager().getArenas()) {
+            addRefreshRanks(arena.getId(), transaction);
+        }
+
+        _isRankBackfillStarted = true;
+
+        transaction.execute()
+                .onSuccess(new SqlAutoCloseSubscriber() {
+                    @Override
+                    public void onResult(@Nullable ISqlResult result, @Nullable String message) {
+                        _isRankTableReady = true;
+                        Msg.debug("Statistics ranking tables rebuilt.");
+                    }
+                })
+                .onError(new SqlAutoCloseSubscriber() {
+                    @Override
+                    public void onResult(@Nullable ISqlResult result, @Nullable String message) {
+                        Msg.warning("Failed to rebuild statistics ranking tables. " +
+                                "Leaderboards will be read from the statistics table.");
+                        Msg.warning(message);
+                    }
+                });
+    }
+
+    /*
+     * Add statements to a transaction that replace the ranking table rows
+     * of an arena with the values of the statistics table.
+     */
+    private void addRefreshRanks(UUID arenaId, ISqlTransaction transaction) {
+
+        for (StatTrackType trackType : StatTrackType.values()) {
+
+            ISqlTable rankTable = _rankTables[trackType.ordinal()];
+
+            rankTable.deleteRows()
+                    .where("arenaId").isEqualTo(arenaId)
+                    .addToTransaction(transaction);
+
+            _dataTable.insertInto(rankTable)
+                    .columns("statName", "arenaId", "value", "playerId")
+                    .select("statName", "arenaId", trackType.name().toLowerCase(), "playerId")
+                    .where(_dataTable, "arenaId").isEqualTo(arenaId)
+                    .addToTransaction(transaction);
+        }
+    }
+
+    private void loadRankTable(ISqlDatabase database, final StatTrackType trackType) {
+
+        ISqlTableDefinition definition = database.createTableBuilder()
+                .usageReadInsert()
+                .transactional()
+                .column("statName", SqlDbType.getString(45)).primary()
+                .column("arenaId", SqlDbType.UNIQUE_ID).primary()
+                .column("value", SqlDbType.DOUBLE).primary()
+                .column("playerId", SqlDbType.UNIQUE_ID).primary()
+                .define();
+
+        // i.e. pvArenaStatRanksTotal
+        String name = trackType.name();
+        String tableName = "pvArenaStatRanks" + name.charAt(0) + name.substring(1).toLowerCase();
+
+        database.createTable(tableName, definition)
+                .onResult(new FutureResultSubscriber<ISqlTable>() {
+                    @Override
+                    public void on(Result<ISqlTable> result) {
+                        // do nothing
+                    }
+                    @Override
+                    public void onSuccess(Result<ISqlTable> result) {
+                        _rankTables[trackType.ordinal()] = result.getResult();
+                        _rankTablesLoaded++;
+                        backfillRanks();
+                    }
+                    @Override
+                    public void onError(Result<ISqlTable> result) {
+                        Msg.warning("Failed to load arena statistics ranking table.");
+                        Msg.warning(result.getMessage());
+                    }
+                });
+    }
+
+    private void loadWindowTable(ISqlDatabase database) {
+
+        ISqlTableDefinition definition = database.createTableBuilder()
+                .usageReadInsert()
+                .transactional()
+                .column("statName", SqlDbType.getString(45)).primary()
+                .column("arenaId", SqlDbType.UNIQUE_ID).primary()
+                .column("statWindow", SqlDbType.getString(10)).primary()
+                .column("bucket", SqlDbType.INTEGER_UNSIGNED).primary()
+                .column("playerId", SqlDbType.UNIQUE_ID).primary()
+                .column("records", SqlDbType.INTEGER_UNSIGNED)
+                .column("total", SqlDbType.DOUBLE)
+                .column("max", SqlDbType.DOUBLE)
+                .column("min", SqlDbType.DOUBLE)
+                .define();
+
+        database.createTable("pvArenaStatWindows", definition)
+                .onResult(new FutureResultSubscriber<ISqlTable>() {
+                    @Override
+                    public void on(Result<ISqlTable> result) {
+                        // do nothing
+                    }
+                    @Override
+                    public void onSuccess(Result<ISqlTable> result) {
+                        _windowTable = result.getResult();
+                    }
+                    @Override
+                    public void onError(Result<ISqlTable> result) {
+                        Msg.warning("Failed to load arena statistics window table.");
+                        Msg.warning(result.getMessage());
+                    }
+                });
+    }
+
     @EventMethod
     private void onArenaDeleted(final ArenaDisposeEvent event) {
 
@@ -129,5 +365,21 @@ public class SqlDataTables implements IEventListener {
                         Msg.info(result.getMessage());
                     }
                 });
+
+        if (_rankTables != null) {
+            for (ISqlTable rankTable : _rankTables) {
+                if (rankTable != null) {
+                    rankTable
+                            .deleteRows().where("arenaId").isEqualTo(arena.getId())
+                            .execute();
+                }
+            }
+        }
+
+        if (_windowTable != null) {
+            _windowTable
+                    .deleteRows().where("arenaId").isEqualTo(arena.getId())
+                    .execute();
+        }
     }
 }
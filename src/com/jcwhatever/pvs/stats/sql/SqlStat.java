@@ -30,16 +30,65 @@ package com.jcwhatever.pvs.stats.sql;
 public class SqlStat {
 
     final String name;
+
+    // UTC epoch day the scores were recorded on, used by buffered scores
+    // to write time window buckets.
+    final int day;
+
     int records;
     double total;
     double max;
     double min;
 
     SqlStat(String name, int records, double total, double max, double min) {
+        this(name, 0, records, total, max, min);
+    }
+
+    SqlStat(String name, int day, int records, double total, double max, double min) {
         this.name = name;
+        this.day = day;
         this.records = records;
         this.total = total;
         this.max = max;
         this.min = min;
     }
+
+    /*
+     * Record a score.
+     */
+    void add(double amount) {
+
+        if (records == 0) {
+            max = amount;
+            min = amount;
+        }
+        else {
+            max = Math.max(max, amount);
+            min = Math.min(min, amount);
+        }
+
+        records++;
+        total += amount;
+    }
+
+    /*
+     * Merge the scores recorded by another instance of the same statistic.
+     */
+    void merge(SqlStat other) {
+
+        if (other.records == 0)
+            return;
+
+        if (records == 0) {
+            max = other.max;
+            min = other.min;
+        }
+        else {
+            max = Math.max(max, other.max);
+            min = Math.min(min, other.min);
+        }
+
+        records += other.records;
+        total += other.total;
+    }
 }
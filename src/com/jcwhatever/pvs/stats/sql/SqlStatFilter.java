@@ -42,6 +42,7 @@ import com.jcwhatever.pvs.api.stats.IStatsFilter;
 import com.jcwhatever.pvs.api.stats.StatOrder;
 import com.jcwhatever.pvs.stats.AbstractStatsFilter;
 import com.jcwhatever.pvs.stats.PlayerStats;
+import com.jcwhatever.pvs.stats.StatWindow;
 
 import javax.annotation.Nullable;
 import java.sql.SQLException;
@@ -56,17 +57,21 @@ import java.util.UUID;
  */
 public class SqlStatFilter extends AbstractStatsFilter implements IStatsFilter {
 
+    private final SqlDataTables _tables;
     private final ISqlTable _table;
+    private final ISqlTable _windowTable;
 
     /**
      * Constructor.
      *
-     * @param table  The table that stores all statistics.
+     * @param tables  The data tables. The statistics table must be loaded.
      */
-    public SqlStatFilter(ISqlTable table) {
-        PreCon.notNull(table);
+    public SqlStatFilter(SqlDataTables tables) {
+        PreCon.notNull(tables);
 
-        _table = table;
+        _tables = tables;
+        _table = tables.getTable();
+        _windowTable = tables.getWindowTable();
     }
 
     @Override
@@ -74,12 +79,33 @@ public class SqlStatFilter extends AbstractStatsFilter implements IStatsFilter {
         PreCon.positiveNumber(offset);
         PreCon.greaterThanZero(limit);
 
+        boolean isWindowed = getWindow() != StatWindow.ALL_TIME;
+
+        // windows are not tracked
+        if (isWindowed && _windowTable == null) {
+            List<IPlayerStats> empty = new ArrayList<>(0);
+            return FutureResultAgent.successResult(empty);
+        }
+
+        // a single arena and statistic can be read directly from a ranking table
+        if (!isWindowed && arenaIds().size() == 1 && totalStats() == 1) {
+
+            ISqlTable rankTable = _tables.getRankTable(getStat(0).trackType);
+            if (rankTable != null)
+                return filterRanked(rankTable, offset, limit);
+        }
+
         final FutureResultAgent<List<IPlayerStats>> agent = new FutureResultAgent<>();
 
         ISqlTransaction transaction = _table.getDatabase().createTransaction();
         final ISqlTable temp = createTempTable("temp", transaction);
 
-        fillTempTable(temp, transaction);
+        if (isWindowed) {
+            fillTempTableWindowed(temp, transaction);
+        }
+        else {
+            fillTempTable(temp, transaction);
+        }
 
         temp.selectRows(getTempColumns())
                 .orderBy(new IOrderGenerator() {
@@ -164,6 +190,80 @@ public class SqlStatFilter extends AbstractStatsFilter implements IStatsFilter {
         return agent.getFuture();
     }
 
+    // read a page of a single arena statistic from the ranking table of its tracking
+    // type, the rows are a range of the primary key ordered by value.
+    private IFutureResult<List<IPlayerStats>> filterRanked(final ISqlTable rankTable,
+                                                           int offset, final int limit) {
+
+        final FutureResultAgent<List<IPlayerStats>> agent = new FutureResultAgent<>();
+
+        final StatParam param = getStat(0);
+        UUID arenaId = arenaIds().iterator().next();
+
+        rankTable.selectRows("playerId", "value")
+                .where("statName").isEqualTo(param.statType.getName())
+                .and("arenaId").isEqualTo(arenaId)
+                .orderBy(new IOrderGenerator() {
+                    @Override
+                    public SqlColumnOrder[] getOrder(ISqlTable table) {
+
+                        SqlOrder order = param.statType.getOrder() == StatOrder.ASCENDING
+                                ? SqlOrder.DESCENDING
+                                : SqlOrder.ASCENDING;
+
+                        return new SqlColumnOrder[] { new SqlColumnOrder(rankTable, "value", order) };
+                    }
+                })
+                .limit(offset, limit)
+                .execute()
+                .onResult(new SqlAutoCloseSubscriber() {
+                    @Override
+                    public void onResult(@Nullable ISqlResult result, @Nullable String message) {
+
+                        if (result == null) {
+                            agent.error(null, message);
+                            return;
+                        }
+
+                        ISqlQueryResult data = result.getFirstResult();
+                        assert data != null;
+
+                        List<IPlayerStats> results = new ArrayList<IPlayerStats>(limit);
+
+                        try {
+                            while (data.next()) {
+
+                                PlayerStats stats = new PlayerStats(data.getUUID("playerId"));
+                                PlayerStats.Stat stat = stats.getStat(param.statType.getName());
+                                double score = data.getDouble("value");
+
+                                switch (param.trackType) {
+                                    case TOTAL:
+                                        stat.total(score);
+                                        break;
+                                    case MAX:
+                                        stat.max(score);
+                                        break;
+                                    case MIN:
+                                        stat.min(score);
+                                        break;
+                                }
+
+                                results.add(stats);
+                            }
+                        } catch (SQLException e) {
+                            e.printStackTrace();
+                            agent.error();
+                            return;
+                        }
+
+                        agent.success(results);
+                    }
+                });
+
+        return agent.getFuture();
+    }
+
     // fill temporary table with data from the main table
     private void fillTempTable(ISqlTable temp, ISqlTransaction transaction) {
 
@@ -216,6 +316,63 @@ public class SqlStatFilter extends AbstractStatsFilter implements IStatsFilter {
         }
     }
 
+    // fill temporary table with data from the current filter window bucket
+    private void fillTempTableWindowed(ISqlTable temp, ISqlTransaction transaction) {
+
+        List<UUID> arenaIds = new ArrayList<>(arenaIds());
+        String window = getWindow().name();
+        int bucket = getWindowBucket();
+
+        for (UUID arenaId : arenaIds) {
+
+            for (int j = 0; j < totalStats(); j++) {
+
+                StatParam param = getStat(j);
+                String statName = param.statType.getName();
+                String orderColumn = param.trackType.name().toLowerCase();
+
+                switch (param.trackType) {
+                    case TOTAL:
+                        _windowTable.insertInto(temp)
+                                .columns("playerId", "order" + j)
+                                .select("playerId", orderColumn)
+                                .where(_windowTable, "statName").isEqualTo(statName)
+                                .and(_windowTable, "arenaId").isEqualTo(arenaId)
+                                .and(_windowTable, "statWindow").isEqualTo(window)
+                                .and(_windowTable, "bucket").isEqualTo(bucket)
+                                .ifExists()
+                                .set(temp, "order" + j).addColumn(_windowTable, orderColumn)
+                                .addToTransaction(transaction);
+                        break;
+                    case MAX:
+                        _windowTable.insertInto(temp)
+                                .columns("playerId", "order" + j)
+                                .select("playerId", orderColumn)
+                                .where(_windowTable, "statName").isEqualTo(statName)
+                                .and(_windowTable, "arenaId").isEqualTo(arenaId)
+                                .and(_windowTable, "statWindow").isEqualTo(window)
+                                .and(_windowTable, "bucket").isEqualTo(bucket)
+                                .ifExists()
+                                .set(temp, "order" + j).largerColumn(_windowTable, orderColumn)
+                                .addToTransaction(transaction);
+                        break;
+                    case MIN:
+                        _windowTable.insertInto(temp)
+                                .columns("playerId", "order" + j)
+                                .select("playerId", orderColumn)
+                                .where(_windowTable, "statName").isEqualTo(statName)
+                                .and(_windowTable, "arenaId").isEqualTo(arenaId)
+                                .and(_windowTable, "statWindow").isEqualTo(window)
+                                .and(_windowTable, "bucket").isEqualTo(bucket)
+                                .ifExists()
+                                .set(temp, "order" + j).smallerColumn(_windowTable, orderColumn)
+                                .addToTransaction(transaction);
+                        break;
+                }
+            }
+        }
+    }
+
     // get the names of the columns in the temporary table
     private String[] getTempColumns() {
         String[] results = new String[totalStats() + 1];
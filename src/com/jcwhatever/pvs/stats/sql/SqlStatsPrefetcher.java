@@ -0,0 +1,262 @@
+/*
+ * This file is part of PV-Star for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.pvs.stats.sql;
+
+import com.jcwhatever.nucleus.providers.sql.ISqlQueryResult;
+import com.jcwhatever.nucleus.providers.sql.ISqlResult;
+import com.jcwhatever.nucleus.providers.sql.ISqlTable;
+import com.jcwhatever.nucleus.providers.sql.observer.SqlAutoCloseSubscriber;
+import com.jcwhatever.nucleus.utils.PreCon;
+import com.jcwhatever.pvs.api.PVStarAPI;
+import com.jcwhatever.pvs.api.arena.IArena;
+import com.jcwhatever.pvs.api.stats.IArenaStats;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+
+import javax.annotation.Nullable;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Loads the statistics of players into the arena statistics caches
+ * before they are requested.
+ *
+ * <p>When a player logs in, the players statistics for all visible arenas
+ * are read with a single query. When a player joins an arena, the statistics
+ * for that arena are read if they are not already cached.</p>
+ *
+ * <p>The number of prefetch queries running at the same time is capped,
+ * additional requests wait in a queue.</p>
+ */
+public class SqlStatsPrefetcher implements Listener {
+
+    private final SqlDataTables _tables;
+    private final int _maxConcurrent;
+
+    // player ID -> arena ID, null arena ID prefetches all visible arenas
+    private final Map<UUID, UUID> _queue = new LinkedHashMap<>(10);
+    private int _running;
+
+    /**
+     * Constructor.
+     *
+     * @param tables         The statistics data tables.
+     * @param maxConcurrent  The maximum number of prefetch queries that
+     *                       can run at the same time.
+     */
+    public SqlStatsPrefetcher(SqlDataTables tables, int maxConcurrent) {
+        PreCon.notNull(tables);
+        PreCon.greaterThanZero(maxConcurrent);
+
+        _tables = tables;
+        _maxConcurrent = maxConcurrent;
+    }
+
+    /**
+     * Get the maximum number of prefetch queries that can run at the same time.
+     */
+    public int getMaxConcurrent() {
+        return _maxConcurrent;
+    }
+
+    /**
+     * Get the number of prefetch requests waiting for a query slot.
+     */
+    public int totalQueued() {
+        return _queue.size();
+    }
+
+    /**
+     * Prefetch statistics for a player.
+     *
+     * @param playerId  The ID of the player.
+     * @param arenaId   The ID of the arena to prefetch or null to prefetch
+     *                  all visible arenas.
+     */
+    public void prefetch(UUID playerId, @Nullable UUID arenaId) {
+        PreCon.notNull(playerId);
+
+        if (_queue.containsKey(playerId)) {
+
+            // widen a queued single arena request
+            if (arenaId == null || !arenaId.equals(_queue.get(playerId)))
+                _queue.put(playerId, null);
+
+            return;
+        }
+
+        _queue.put(playerId, arenaId);
+        next();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onPlayerJoin(PlayerJoinEvent event) {
+        prefetch(event.getPlayer().getUniqueId(), null);
+    }
+
+    /*
+     * Start queued queries while there are free query slots.
+     */
+    private void next() {
+
+        // arenas are not available until the plugin is loaded
+        if (!PVStarAPI.getPlugin().isLoaded() || !_tables.isLoaded()) {
+            _queue.clear();
+            return;
+        }
+
+        Iterator<Map.Entry<UUID, UUID>> iterator = _queue.entrySet().iterator();
+
+        while (_running < _maxConcurrent && iterator.hasNext()) {
+
+            Map.Entry<UUID, UUID> entry = iterator.next();
+            iterator.remove();
+
+            UUID playerId = entry.getKey();
+
+            Player player = Bukkit.getPlayer(playerId);
+            if (player == null || !player.isOnline())
+                continue;
+
+            Map<UUID, SqlArenaStats> targets = getTargets(playerId, entry.getValue());
+            if (targets.isEmpty())
+                continue;
+
+            _running++;
+            query(playerId, entry.getValue(), targets);
+        }
+    }
+
+    /*
+     * Get the arena statistics, keyed by arena ID, that are filled by a query.
+     */
+    private Map<UUID, SqlArenaStats> getTargets(UUID playerId, @Nullable UUID arenaId) {
+
+        Map<UUID, SqlArenaStats> targets = new HashMap<>(10);
+
+        if (arenaId != null) {
+            addTarget(targets, playerId, arenaId);
+        }
+        else {
+            for (IArena arena : PVStarAPI.getArenaManager().getArenas()) {
+                if (arena.getSettings().isVisible())
+                    addTarget(targets, playerId, arena.getId());
+            }
+        }
+
+        return targets;
+    }
+
+    private void addTarget(Map<UUID, SqlArenaStats> targets, UUID playerId, UUID arenaId) {
+
+        IArenaStats arenaStats = PVStarAPI.getStatsManager().getArenaStats(arenaId);
+        if (!(arenaStats instanceof SqlArenaStats))
+            return;
+
+        if (((SqlArenaStats) arenaStats).beginPrefetch(playerId))
+            targets.put(arenaId, (SqlArenaStats) arenaStats);
+    }
+
+    /*
+     * Read the players statistics for all target arenas in one query.
+     */
+    private void query(final UUID playerId, @Nullable UUID arenaId,
+                       final Map<UUID, SqlArenaStats> targets) {
+
+        // all arena statistics share the write buffer
+        final int sequence = targets.values().iterator().next().getWriteSequence();
+
+        SqlAutoCloseSubscriber subscriber = new SqlAutoCloseSubscriber() {
+            @Override
+            public void onResult(@Nullable ISqlResult result, @Nullable String message) {
+
+                _running--;
+
+                Map<UUID, SqlArenaPlayerStats> results = null;
+                ISqlQueryResult data = result != null ? result.getFirstResult() : null;
+
+                if (data != null) {
+
+                    results = new HashMap<>(targets.size());
+
+                    for (Map.Entry<UUID, SqlArenaStats> entry : targets.entrySet()) {
+                        results.put(entry.getKey(),
+                                new SqlArenaPlayerStats(entry.getValue(), playerId));
+                    }
+
+                    try {
+                        while (data.next()) {
+
+                            SqlArenaPlayerStats stats = results.get(data.getUUID("arenaId"));
+                            if (stats == null)
+                                continue;
+
+                            SqlStat stat = stats.getStat(data.getString("statName"));
+                            stat.records = data.getInt("records");
+                            stat.total = data.getDouble("total");
+                            stat.max = data.getDouble("max");
+                            stat.min = data.getDouble("min");
+                        }
+                    } catch (SQLException e) {
+                        e.printStackTrace();
+                        results = null;
+                    }
+                }
+
+                for (Map.Entry<UUID, SqlArenaStats> entry : targets.entrySet()) {
+                    entry.getValue().endPrefetch(playerId,
+                            results != null ? results.get(entry.getKey()) : null, sequence);
+                }
+
+                next();
+            }
+        };
+
+        ISqlTable table = _tables.getTable();
+        assert table != null;
+
+        if (arenaId != null) {
+            table.selectRows("arenaId", "statName", "records", "total", "max", "min")
+                    .where("playerId").isEqualTo(playerId)
+                    .and("arenaId").isEqualTo(arenaId)
+                    .execute()
+                    .onResult(subscriber);
+        }
+        else {
+            table.selectRows("arenaId", "statName", "records", "total", "max", "min")
+                    .where("playerId").isEqualTo(playerId)
+                    .execute()
+                    .onResult(subscriber);
+        }
+    }
+}
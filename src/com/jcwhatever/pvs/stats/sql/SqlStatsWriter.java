@@ -0,0 +1,472 @@
+/*
+ * This file is part of PV-Star for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.pvs.stats.sql;
+
+import com.jcwhatever.nucleus.managed.scheduler.IScheduledTask;
+import com.jcwhatever.nucleus.managed.scheduler.Scheduler;
+import com.jcwhatever.nucleus.providers.sql.ISqlResult;
+import com.jcwhatever.nucleus.providers.sql.ISqlTable;
+import com.jcwhatever.nucleus.providers.sql.observer.SqlAutoCloseSubscriber;
+import com.jcwhatever.nucleus.providers.sql.statement.ISqlTransaction;
+import com.jcwhatever.nucleus.utils.PreCon;
+import com.jcwhatever.pvs.api.PVStarAPI;
+import com.jcwhatever.pvs.api.utils.Msg;
+import com.jcwhatever.pvs.stats.StatWindow;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+
+/**
+ * Write buffer for database statistics.
+ *
+ * <p>Merges score increments per arena, player, statistic and UTC day and writes
+ * them to the database as a single transaction per flush instead of one transaction
+ * per score increment. The day a score was recorded on determines the time window
+ * buckets it is written to.</p>
+ *
+ * <p>A flush is scheduled when the first score is added and runs after the
+ * maximum staleness period has elapsed. It can also be invoked explicitly,
+ * i.e. when a game ends or when the plugin is disabled.</p>
+ *
+ * <p>If a flush transaction fails, its merged scores are kept and written again
+ * with the next flush. Scores that fail a second time are discarded.</p>
+ *
+ * <p>Statistics loaded from the database do not include buffered scores. Loaded
+ * statistics are brought up to date with {@link #applyPending}.</p>
+ */
+public class SqlStatsWriter implements Runnable {
+
+    private Map<SqlArenaStats, Map<UUID, List<SqlStat>>> _pending =
+            new LinkedHashMap<>(10);
+
+    // scores of a failed flush, written once more with the next flush
+    private Map<SqlArenaStats, Map<UUID, List<SqlStat>>> _retry =
+            new LinkedHashMap<>(10);
+
+    // flushes waiting for their transaction result, oldest first
+    private final Deque<FlushBatch> _inFlight = new ArrayDeque<>(5);
+
+    private final int _maxStalenessTicks;
+
+    private IScheduledTask _task;
+    private int _sequence;
+    private int _totalPending;
+    private int _totalRetry;
+
+    // last window buckets expired rows were pruned for, indexed by window ordinal
+    private final int[] _prunedBuckets = new int[StatWindow.values().length];
+
+    // metrics
+    private int _totalFlushes;
+    private int _totalFailedFlushes;
+    private long _totalRowsDropped;
+    private long _totalRowsFlushed;
+    private int _lastBatchSize;
+    private int _maxBatchSize;
+    private long _lastFlushNanos;
+    private long _totalFlushNanos;
+
+    /**
+     * Constructor.
+     *
+     * @param maxStalenessTicks  The maximum number of ticks added scores
+     *                           can remain unwritten.
+     */
+    public SqlStatsWriter(int maxStalenessTicks) {
+        PreCon.greaterThanZero(maxStalenessTicks);
+
+        _maxStalenessTicks = maxStalenessTicks;
+    }
+
+    /**
+     * Get the maximum number of ticks added scores can remain unwritten.
+     */
+    public int getMaxStalenessTicks() {
+        return _maxStalenessTicks;
+    }
+
+    /**
+     * Get the number of merged rows waiting to be written.
+     */
+    public int totalPending() {
+        return _totalPending;
+    }
+
+    /**
+     * Get the number of merged rows of a failed flush waiting to be written again.
+     */
+    public int totalRetryPending() {
+        return _totalRetry;
+    }
+
+    /**
+     * Get the number of flushes whose transaction failed.
+     */
+    public int totalFailedFlushes() {
+        return _totalFailedFlushes;
+    }
+
+    /**
+     * Get the number of merged rows discarded after failing to be written twice.
+     */
+    public long totalRowsDropped() {
+        return _totalRowsDropped;
+    }
+
+    /**
+     * Get the number of completed flushes.
+     */
+    public int totalFlushes() {
+        return _totalFlushes;
+    }
+
+    /**
+     * Get the total number of merged rows written by all completed flushes.
+     */
+    public long totalRowsFlushed() {
+        return _totalRowsFlushed;
+    }
+
+    /**
+     * Get the number of merged rows written by the last completed flush.
+     */
+    public int getLastBatchSize() {
+        return _lastBatchSize;
+    }
+
+    /**
+     * Get the largest number of merged rows written by a single flush.
+     */
+    public int getMaxBatchSize() {
+        return _maxBatchSize;
+    }
+
+    /**
+     * Get the time in milliseconds the last completed flush took
+     * from execution to the database result.
+     */
+    public double getLastFlushMillis() {
+        return _lastFlushNanos / 1000000D;
+    }
+
+    /**
+     * Get the average time in milliseconds a completed flush took
+     * from execution to the database result.
+     */
+    public double getAverageFlushMillis() {
+        return _totalFlushes == 0
+                ? 0
+                : (_totalFlushNanos / (double)_totalFlushes) / 1000000D;
+    }
+
+    /**
+     * Get the sequence number of the last flush.
+     *
+     * <p>Database reads started after a flush include the scores of the flush.
+     * The sequence number is used with {@link #applyPending} to add the scores
+     * of later flushes.</p>
+     */
+    public int getSequence() {
+        return _sequence;
+    }
+
+    /**
+     * Add a score to be written on the next flush.
+     *
+     * @param stats     The arena statistics the score belongs to.
+     * @param playerId  The ID of the player.
+     * @param statName  The name of the statistic.
+     * @param amount    The score amount.
+     */
+    public void add(SqlArenaStats stats, UUID playerId, String statName, double amount) {
+        PreCon.notNull(stats);
+        PreCon.notNull(playerId);
+        PreCon.notNull(statName);
+
+        int day = StatWindow.getDay(System.currentTimeMillis());
+
+        SqlStat stat = getStat(_pending, stats, playerId, statName, day);
+        if (stat.records == 0)
+            _totalPending++;
+
+        stat.add(amount);
+
+        scheduleFlush();
+    }
+
+    /**
+     * Add the scores of a player that are not yet written to the database,
+     * or not included in a database read, to statistics loaded by the read.
+     *
+     * @param stats     The arena statistics the scores belong to.
+     * @param playerId  The ID of the player.
+     * @param sequence  The flush sequence number when the read was started.
+     *                  See {@link #getSequence}.
+     * @param target    The loaded statistics to add the scores to.
+     */
+    public void applyPending(SqlArenaStats stats, UUID playerId, int sequence,
+                             SqlArenaPlayerStats target) {
+        PreCon.notNull(stats);
+        PreCon.notNull(playerId);
+        PreCon.notNull(target);
+
+        // flushes started after the read are not included in its results
+        for (FlushBatch flush : _inFlight) {
+            if (flush.sequence > sequence) {
+                apply(flush.batch, stats, playerId, target);
+                apply(flush.retry, stats, playerId, target);
+            }
+        }
+
+        apply(_retry, stats, playerId, target);
+        apply(_pending, stats, playerId, target);
+    }
+
+    /**
+     * Write all pending scores to the database.
+     */
+    public void flush() {
+
+        if (_task != null) {
+            _task.cancel();
+            _task = null;
+        }
+
+        if (_pending.isEmpty() && _retry.isEmpty())
+            return;
+
+        final FlushBatch flush = new FlushBatch(++_sequence, _pending, _retry);
+        final int batchSize = _totalPending;
+        final int retrySize = _totalRetry;
+
+        _pending = new LinkedHashMap<>(10);
+        _retry = new LinkedHashMap<>(10);
+        _totalPending = 0;
+        _totalRetry = 0;
+
+        SqlArenaStats first = !flush.batch.isEmpty()
+                ? flush.batch.keySet().iterator().next()
+                : flush.retry.keySet().iterator().next();
+
+        ISqlTransaction transaction = first.getTable().getDatabase().createTransaction();
+
+        for (Entry<SqlArenaStats, Map<UUID, List<SqlStat>>> entry : flush.batch.entrySet()) {
+            entry.getKey().writeScores(entry.getValue(), flush.sequence, transaction);
+        }
+
+        for (Entry<SqlArenaStats, Map<UUID, List<SqlStat>>> entry : flush.retry.entrySet()) {
+            entry.getKey().writeScores(entry.getValue(), flush.sequence, transaction);
+        }
+
+        ISqlTable windowTable = first.getWindowTable();
+        if (windowTable != null)
+            pruneWindows(windowTable, transaction);
+
+        final long start = System.nanoTime();
+
+        _inFlight.add(flush);
+
+        transaction.execute()
+                .onResult(new SqlAutoCloseSubscriber() {
+                    @Override
+                    public void onResult(@Nullable ISqlResult result, @Nullable String message) {
+
+                        long elapsed = System.nanoTime() - start;
+
+                        _inFlight.remove(flush);
+
+                        if (result == null) {
+                            _totalFailedFlushes++;
+
+                            Msg.warning("Failed to write {0} statistics rows to the database: {1}",
+                                    batchSize + retrySize, message);
+
+                            if (retrySize > 0) {
+                                _totalRowsDropped += retrySize;
+                                Msg.warning("Discarded {0} statistics rows that failed to be written twice.",
+                                        retrySize);
+                            }
+
+                            requeue(flush.batch);
+                            return;
+                        }
+
+                        int totalRows = batchSize + retrySize;
+
+                        _totalFlushes++;
+                        _totalRowsFlushed += totalRows;
+                        _lastBatchSize = totalRows;
+                        _maxBatchSize = Math.max(_maxBatchSize, totalRows);
+                        _lastFlushNanos = elapsed;
+                        _totalFlushNanos += elapsed;
+                    }
+                });
+    }
+
+    /*
+     * Keep the merged scores of a failed flush so they are written
+     * once more with the next flush.
+     */
+    private void requeue(Map<SqlArenaStats, Map<UUID, List<SqlStat>>> batch) {
+
+        for (Entry<SqlArenaStats, Map<UUID, List<SqlStat>>> arenaEntry : batch.entrySet()) {
+
+            SqlArenaStats stats = arenaEntry.getKey();
+
+            for (Entry<UUID, List<SqlStat>> playerEntry : arenaEntry.getValue().entrySet()) {
+
+                UUID playerId = playerEntry.getKey();
+
+                for (SqlStat failed : playerEntry.getValue()) {
+
+                    SqlStat stat = getStat(_retry, stats, playerId, failed.name, failed.day);
+                    if (stat.records == 0)
+                        _totalRetry++;
+
+                    stat.merge(failed);
+                }
+            }
+        }
+
+        scheduleFlush();
+    }
+
+    /*
+     * Get or create the merged score of a statistic recorded on a day
+     * in a pending score map.
+     */
+    private SqlStat getStat(Map<SqlArenaStats, Map<UUID, List<SqlStat>>> pending,
+                            SqlArenaStats stats, UUID playerId, String statName, int day) {
+
+        Map<UUID, List<SqlStat>> players = pending.get(stats);
+        if (players == null) {
+            players = new HashMap<>(25);
+            pending.put(stats, players);
+        }
+
+        List<SqlStat> scores = players.get(playerId);
+        if (scores == null) {
+            scores = new ArrayList<>(15);
+            players.put(playerId, scores);
+        }
+
+        // a player has few statistics per day, a scan does not allocate a key
+        for (int i = 0; i < scores.size(); i++) {
+            SqlStat stat = scores.get(i);
+            if (stat.day == day && stat.name.equals(statName))
+                return stat;
+        }
+
+        SqlStat stat = new SqlStat(statName, day, 0, 0, 0, 0);
+        scores.add(stat);
+
+        return stat;
+    }
+
+    /*
+     * Add the pending scores of a player to loaded statistics.
+     */
+    private static void apply(Map<SqlArenaStats, Map<UUID, List<SqlStat>>> pending,
+                              SqlArenaStats stats, UUID playerId, SqlArenaPlayerStats target) {
+
+        Map<UUID, List<SqlStat>> players = pending.get(stats);
+        if (players == null)
+            return;
+
+        List<SqlStat> scores = players.get(playerId);
+        if (scores == null)
+            return;
+
+        for (SqlStat stat : scores) {
+            target.getStat(stat.name).merge(stat);
+        }
+    }
+
+    private void scheduleFlush() {
+
+        // tasks cannot be scheduled while the plugin is disabling,
+        // the final flush is invoked explicitly.
+        if (_task == null && PVStarAPI.getPlugin().isLoaded())
+            _task = Scheduler.runTaskLater(PVStarAPI.getPlugin(), _maxStalenessTicks, this);
+    }
+
+    /*
+     * Add statements to a transaction that delete window buckets that are no
+     * longer retained. Runs once per window each time the current bucket changes.
+     */
+    private void pruneWindows(ISqlTable windowTable, ISqlTransaction transaction) {
+
+        long now = System.currentTimeMillis();
+
+        for (StatWindow window : StatWindow.values()) {
+
+            if (window == StatWindow.ALL_TIME)
+                continue;
+
+            int bucket = window.getBucket(now);
+            if (_prunedBuckets[window.ordinal()] == bucket)
+                continue;
+
+            _prunedBuckets[window.ordinal()] = bucket;
+
+            windowTable.deleteRows()
+                    .where("statWindow").isEqualTo(window.name())
+                    .and("bucket").isLessThan(bucket - StatWindow.RETAINED_BUCKETS + 1)
+                    .addToTransaction(transaction);
+        }
+    }
+
+    @Override
+    public void run() {
+        _task = null;
+        flush();
+    }
+
+    /*
+     * The scores written by a flush.
+     */
+    private static class FlushBatch {
+
+        final int sequence;
+        final Map<SqlArenaStats, Map<UUID, List<SqlStat>>> batch;
+        final Map<SqlArenaStats, Map<UUID, List<SqlStat>>> retry;
+
+        FlushBatch(int sequence,
+                   Map<SqlArenaStats, Map<UUID, List<SqlStat>>> batch,
+                   Map<SqlArenaStats, Map<UUID, List<SqlStat>>> retry) {
+            this.sequence = sequence;
+            this.batch = batch;
+            this.retry = retry;
+        }
+    }
+}